@@ -0,0 +1,22 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.filters.AuthHeader;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthHeaderBenchmark {
+    @Param({"Bearer eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJ1c2VyIn0.signature", "Basic dXNlcjpwYXNzd29yZA==", "foo", ""})
+    String authorization;
+
+    @Benchmark
+    public AuthHeader parse() {
+        return AuthHeader.parse(authorization);
+    }
+}
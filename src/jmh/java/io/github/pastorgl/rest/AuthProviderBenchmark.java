@@ -0,0 +1,66 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.entity.AuthorizedUser;
+import io.github.pastorgl.rest.entity.Role;
+import io.github.pastorgl.rest.filters.AuthHeader;
+import io.github.pastorgl.rest.filters.AuthProvider;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.HttpHeaders;
+import java.net.URI;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthProviderBenchmark {
+    private static final AuthorizedUser USER = new AuthorizedUser("user-uuid", "test@email.com", Role.ADMIN, "name");
+
+    @Param({"permitAll", "adminOnly"})
+    String resourceMethod;
+
+    @Param({"10000", "0"})
+    String authCacheSize;
+
+    private AuthProvider authProvider;
+    private ContainerRequest request;
+
+    @Setup
+    public void setup() {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CHECK_ENDPOINT, "http://localhost/auth");
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CACHE_SIZE, authCacheSize);
+
+        // auth service answers instantly, so only the filter's own overhead is measured
+        authProvider = new AuthProvider(properties, new BenchmarkStubs.StubResourceInfo(resourceMethod),
+                new BenchmarkStubs.StubUriInfo("http://localhost/", "api/resource")) {
+            @Override
+            protected AuthorizedUser callAuthCheckEndpoint(String authCheckEndpoint, AuthHeader authHeader) {
+                return USER;
+            }
+        };
+
+        request = new ContainerRequest(URI.create("http://localhost/"), URI.create("http://localhost/api/resource"),
+                HttpMethod.GET, null, new MapPropertiesDelegate(), null);
+        request.header(HttpHeaders.AUTHORIZATION, "Bearer access-token");
+    }
+
+    @TearDown
+    public void tearDown() {
+        authProvider.close();
+    }
+
+    @Benchmark
+    public ContainerRequest filter() {
+        authProvider.filter(request);
+        return request;
+    }
+}
@@ -0,0 +1,277 @@
+package io.github.pastorgl.rest;
+
+import javax.annotation.security.PermitAll;
+import javax.annotation.security.RolesAllowed;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.*;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal hand-written JAX-RS contexts, so benchmarks measure providers rather than mocking frameworks
+ */
+final class BenchmarkStubs {
+    private BenchmarkStubs() {
+    }
+
+    public static class Resource {
+        @PermitAll
+        public Object permitAll() {
+            return null;
+        }
+
+        @RolesAllowed("admin")
+        public Object adminOnly() {
+            return null;
+        }
+    }
+
+    static class StubResourceInfo implements ResourceInfo {
+        private final Method method;
+
+        StubResourceInfo(String methodName) {
+            try {
+                this.method = Resource.class.getMethod(methodName);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        @Override
+        public Method getResourceMethod() {
+            return method;
+        }
+
+        @Override
+        public Class<?> getResourceClass() {
+            return Resource.class;
+        }
+    }
+
+    static class StubUriInfo implements UriInfo {
+        private final URI baseUri;
+        private final URI requestUri;
+        private final String path;
+
+        StubUriInfo(String baseUri, String path) {
+            this.baseUri = URI.create(baseUri);
+            this.requestUri = this.baseUri.resolve(path);
+            this.path = path;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public String getPath(boolean decode) {
+            return path;
+        }
+
+        @Override
+        public List<PathSegment> getPathSegments() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<PathSegment> getPathSegments(boolean decode) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public URI getRequestUri() {
+            return requestUri;
+        }
+
+        @Override
+        public UriBuilder getRequestUriBuilder() {
+            return UriBuilder.fromUri(requestUri);
+        }
+
+        @Override
+        public URI getAbsolutePath() {
+            return requestUri;
+        }
+
+        @Override
+        public UriBuilder getAbsolutePathBuilder() {
+            return UriBuilder.fromUri(requestUri);
+        }
+
+        @Override
+        public URI getBaseUri() {
+            return baseUri;
+        }
+
+        @Override
+        public UriBuilder getBaseUriBuilder() {
+            return UriBuilder.fromUri(baseUri);
+        }
+
+        @Override
+        public MultivaluedMap<String, String> getPathParameters() {
+            return new MultivaluedHashMap<>();
+        }
+
+        @Override
+        public MultivaluedMap<String, String> getPathParameters(boolean decode) {
+            return new MultivaluedHashMap<>();
+        }
+
+        @Override
+        public MultivaluedMap<String, String> getQueryParameters() {
+            return new MultivaluedHashMap<>();
+        }
+
+        @Override
+        public MultivaluedMap<String, String> getQueryParameters(boolean decode) {
+            return new MultivaluedHashMap<>();
+        }
+
+        @Override
+        public List<String> getMatchedURIs() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<String> getMatchedURIs(boolean decode) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<Object> getMatchedResources() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public URI resolve(URI uri) {
+            return baseUri.resolve(uri);
+        }
+
+        @Override
+        public URI relativize(URI uri) {
+            return baseUri.relativize(uri);
+        }
+    }
+
+    /**
+     * Terminal context: proceed() is a no-op in place of the entity provider
+     */
+    static class StubWriterInterceptorContext implements WriterInterceptorContext {
+        private final Map<String, Object> properties = new HashMap<>();
+        private final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        private Object entity;
+        private OutputStream outputStream;
+        private Annotation[] annotations = new Annotation[0];
+        private Class<?> type;
+        private Type genericType;
+        private MediaType mediaType;
+
+        void reset(Object entity, OutputStream outputStream) {
+            this.entity = entity;
+            this.outputStream = outputStream;
+            this.type = entity.getClass();
+            this.genericType = entity.getClass();
+            this.mediaType = MediaType.WILDCARD_TYPE;
+        }
+
+        @Override
+        public void proceed() {
+        }
+
+        @Override
+        public Object getEntity() {
+            return entity;
+        }
+
+        @Override
+        public void setEntity(Object entity) {
+            this.entity = entity;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        @Override
+        public void setOutputStream(OutputStream os) {
+            this.outputStream = os;
+        }
+
+        @Override
+        public MultivaluedMap<String, Object> getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Object getProperty(String name) {
+            return properties.get(name);
+        }
+
+        @Override
+        public Collection<String> getPropertyNames() {
+            return properties.keySet();
+        }
+
+        @Override
+        public void setProperty(String name, Object object) {
+            properties.put(name, object);
+        }
+
+        @Override
+        public void removeProperty(String name) {
+            properties.remove(name);
+        }
+
+        @Override
+        public Annotation[] getAnnotations() {
+            return annotations;
+        }
+
+        @Override
+        public void setAnnotations(Annotation[] annotations) {
+            this.annotations = annotations;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return type;
+        }
+
+        @Override
+        public void setType(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public Type getGenericType() {
+            return genericType;
+        }
+
+        @Override
+        public void setGenericType(Type genericType) {
+            this.genericType = genericType;
+        }
+
+        @Override
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        @Override
+        public void setMediaType(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.filters.CORSFilter;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.Response;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CORSFilterBenchmark {
+    @Param({HttpMethod.GET, HttpMethod.OPTIONS})
+    String method;
+
+    private CORSFilter corsFilter;
+    private ContainerRequest request;
+
+    @Setup
+    public void setup() {
+        corsFilter = new CORSFilter();
+
+        request = new ContainerRequest(URI.create("http://localhost/"), URI.create("http://localhost/api/resource"),
+                method, null, new MapPropertiesDelegate(), null);
+        request.header("Origin", "https://app.example.com");
+    }
+
+    @Benchmark
+    public ContainerRequest requestFilter() {
+        corsFilter.filter(request);
+        return request;
+    }
+
+    @Benchmark
+    public ContainerResponse responseFilter() {
+        ContainerResponse response = new ContainerResponse(request, Response.ok().build());
+        corsFilter.filter(request, response);
+        return response;
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.pastorgl.rest;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import io.github.pastorgl.rest.entity.AuthorizedUser;
+import io.github.pastorgl.rest.entity.Role;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import io.logz.guice.jersey.JerseyModule;
+import io.logz.guice.jersey.JerseyServer;
+import io.logz.guice.jersey.configuration.JerseyConfiguration;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.ServerProperties;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.security.PermitAll;
+import javax.ws.rs.*;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole filter and interceptor chain over HTTP, with the auth check endpoint served by the same embedded server
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class EndToEndBenchmark {
+    private static final int PORT = 9998;
+
+    @Param({"10000", "0"})
+    String authCacheSize;
+
+    private JerseyServer server;
+    private Client client;
+    private WebTarget itemTarget;
+
+    @Setup
+    public void setup() throws Exception {
+        ResourceConfig resourceConfig = new ResourceConfig()
+                .property(ServerProperties.WADL_FEATURE_DISABLE, true)
+                .property(ServerProperties.PROVIDER_PACKAGES, "io.github.pastorgl.rest.filters")
+                .register(BenchmarkEndpoint.class)
+                .register(AuthStubEndpoint.class);
+
+        JerseyConfiguration configuration = JerseyConfiguration.builder()
+                .withResourceConfig(resourceConfig)
+                .addHost("localhost", PORT)
+                .build();
+
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CHECK_ENDPOINT, "http://localhost:" + PORT + "/auth");
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CACHE_SIZE, authCacheSize);
+
+        server = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Properties.class).toInstance(properties);
+            }
+        }, new JerseyModule(configuration)).getInstance(JerseyServer.class);
+        server.start();
+
+        client = new JerseyClientBuilder().build();
+        itemTarget = client.target("http://localhost:" + PORT + "/bench/item");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public int protectedGet() {
+        try (Response response = itemTarget.request()
+                .header(HttpHeaders.AUTHORIZATION, "Bearer user-token")
+                .header("Origin", "https://app.example.com")
+                .get()) {
+            response.readEntity(String.class);
+            return response.getStatus();
+        }
+    }
+
+    @Path("bench")
+    @Produces(MediaType.APPLICATION_JSON)
+    public static class BenchmarkEndpoint {
+        @GET
+        @Path("item")
+        @PermitAll
+        public Response item() {
+            return Response.ok(new WrappingWriterInterceptorTest.TestToken()).build();
+        }
+    }
+
+    @Path("auth")
+    @Produces(MediaType.APPLICATION_JSON)
+    public static class AuthStubEndpoint {
+        @POST
+        @Path("check")
+        public AuthorizedUser check(@HeaderParam(HttpHeaders.AUTHORIZATION) String authorization) {
+            return new AuthorizedUser("user-uuid", "test@email.com", Role.USER, "name");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.filters.WrappingWriterInterceptor;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WrappingWriterInterceptorBenchmark {
+    @Param({"entity", "errorMessage", "token"})
+    String entityKind;
+
+    private WrappingWriterInterceptor interceptor;
+    private BenchmarkStubs.StubWriterInterceptorContext context;
+    private Object entity;
+
+    @Setup
+    public void setup() {
+        interceptor = new WrappingWriterInterceptor(new BenchmarkStubs.StubUriInfo("http://localhost/", "api/resource"));
+        context = new BenchmarkStubs.StubWriterInterceptorContext();
+
+        switch (entityKind) {
+            case "errorMessage":
+                entity = new ErrorMessage("Not found");
+                break;
+            case "token":
+                entity = new WrappingWriterInterceptorTest.TestToken();
+                break;
+            default:
+                entity = new WrappingWriterInterceptorTest.TestEntity();
+        }
+    }
+
+    @Benchmark
+    public Object aroundWriteTo() throws IOException {
+        context.reset(entity, NullOutputStream.NULL_OUTPUT_STREAM);
+        interceptor.aroundWriteTo(context);
+        return context.getMediaType();
+    }
+}
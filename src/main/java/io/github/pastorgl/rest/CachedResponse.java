@@ -0,0 +1,25 @@
+package io.github.pastorgl.rest;
+
+import java.lang.annotation.*;
+
+/**
+ * Lets the serialized entity of a GET resource method be served from the server side response cache.
+ * Entries are keyed by path, query and Accept, and either by authorized user, or only by roles if shared by all
+ * users with the same set of roles.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CachedResponse {
+    /**
+     * Time to live, seconds
+     */
+    long ttl();
+
+    Scope scope() default Scope.PRINCIPAL;
+
+    enum Scope {
+        PRINCIPAL,
+        ROLE
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.pastorgl.rest;
+
+import java.lang.annotation.*;
+
+/**
+ * Turns JSON wrapping of the response entity on or off, overriding the configured excluded types.
+ * A resource method annotation takes precedence over the one of entity class.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Wrapping {
+    boolean value() default true;
+}
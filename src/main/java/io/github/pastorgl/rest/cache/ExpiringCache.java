@@ -0,0 +1,187 @@
+package io.github.pastorgl.rest.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded in-process cache with per-entry absolute expiration.
+ * <p>
+ * Entries are spread over a few independently locked LRU segments, so concurrent readers of different keys
+ * don't contend. Total capacity is expressed as a weight, which is an entry count unless a weigher is given.
+ */
+public class ExpiringCache<K, V> {
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final ToLongFunction<V> weigher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(long maxWeight) {
+        this(maxWeight, value -> 1L);
+    }
+
+    public ExpiringCache(long maxWeight, ToLongFunction<V> weigher) {
+        if (maxWeight <= 0L) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+
+        int segmentCount = 1;
+        while ((segmentCount < MAX_SEGMENTS) && ((segmentCount << 1) <= maxWeight)) {
+            segmentCount <<= 1;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Segment<K, V>[] segments = (Segment<K, V>[]) new Segment[segmentCount];
+        this.segments = segments;
+        long segmentWeight = (maxWeight + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentWeight);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.weigher = weigher;
+    }
+
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+
+        long now = System.currentTimeMillis();
+        Entry<V> entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+
+            if ((entry != null) && (now >= entry.expiresAt)) {
+                segment.remove(key);
+                segment.weight -= entry.weight;
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * @param expiresAt absolute expiration time, in epoch milliseconds
+     */
+    public void put(K key, V value, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+
+        Segment<K, V> segment = segmentFor(key);
+
+        long weight = weigher.applyAsLong(value);
+        if (weight > segment.maxWeight) {
+            invalidate(key);
+            return;
+        }
+
+        synchronized (segment) {
+            Entry<V> previous = segment.put(key, new Entry<>(value, expiresAt, weight));
+            if (previous != null) {
+                segment.weight -= previous.weight;
+            }
+            segment.weight += weight;
+
+            Iterator<Entry<V>> eldest = segment.values().iterator();
+            while (segment.weight > segment.maxWeight) {
+                Entry<V> evicted = eldest.next();
+                eldest.remove();
+                segment.weight -= evicted.weight;
+                evictions.increment();
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            Entry<V> entry = segment.remove(key);
+            if (entry != null) {
+                segment.weight -= entry.weight;
+            }
+        }
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.weight = 0L;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long weight() {
+        long weight = 0L;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & segmentMask];
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long expiresAt;
+        final long weight;
+
+        Entry(V value, long expiresAt, long weight) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+        }
+    }
+
+    private static class Segment<K, V> extends LinkedHashMap<K, Entry<V>> {
+        private static final long serialVersionUID = 1L;
+
+        final long maxWeight;
+        long weight;
+
+        Segment(long maxWeight) {
+            super(16, 0.75f, true);
+            this.maxWeight = maxWeight;
+        }
+    }
+}
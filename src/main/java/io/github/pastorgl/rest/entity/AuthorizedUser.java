@@ -1,12 +1,21 @@
 package io.github.pastorgl.rest.entity;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.security.Principal;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class AuthorizedUser implements Principal {
     private String id;
     private String email;
     private Role role;
     private String name;
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Set<Role> roles;
+
+    private transient int roleMask;
 
     public AuthorizedUser() {
     }
@@ -18,6 +27,14 @@ public class AuthorizedUser implements Principal {
         this.name = name;
     }
 
+    /**
+     * @param roles additional roles besides the primary one
+     */
+    public AuthorizedUser(String id, String email, Role role, String name, Collection<Role> roles) {
+        this(id, email, role, name);
+        this.roles = ((roles == null) || roles.isEmpty()) ? null : EnumSet.copyOf(roles);
+    }
+
     public String getId() {
         return id;
     }
@@ -34,4 +51,35 @@ public class AuthorizedUser implements Principal {
     public String getName() {
         return name;
     }
+
+    /**
+     * @return additional roles, or null if there are none
+     */
+    public Set<Role> getRoles() {
+        return roles;
+    }
+
+    /**
+     * @return bit <code>1 &lt;&lt; ordinal</code> set for the primary and each additional role
+     */
+    public int roleMask() {
+        int mask = roleMask;
+        if (mask == 0) {
+            mask = Role.mask(role);
+            if (roles != null) {
+                for (Role r : roles) {
+                    mask |= Role.mask(r);
+                }
+            }
+
+            // benign race, the mask is the same in every thread
+            roleMask = mask;
+        }
+
+        return mask;
+    }
+
+    public boolean hasRole(Role role) {
+        return (roleMask() & Role.mask(role)) != 0;
+    }
 }
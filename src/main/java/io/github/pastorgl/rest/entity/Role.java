@@ -1,6 +1,48 @@
 package io.github.pastorgl.rest.entity;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 public enum Role {
     USER,
-    ADMIN
+    ADMIN;
+
+    private static final Map<String, Role> BY_NAME = new HashMap<>();
+
+    static {
+        for (Role role : values()) {
+            BY_NAME.put(role.name(), role);
+            BY_NAME.put(role.name().toLowerCase(Locale.ROOT), role);
+        }
+    }
+
+    /**
+     * Case-insensitive lookup by name
+     *
+     * @return the role, or null if there's none with this name
+     */
+    public static Role of(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        Role role = BY_NAME.get(name);
+        if (role == null) {
+            for (Role r : values()) {
+                if (r.name().equalsIgnoreCase(name)) {
+                    return r;
+                }
+            }
+        }
+
+        return role;
+    }
+
+    /**
+     * @return bit <code>1 &lt;&lt; ordinal</code> of the role, or 0 for null
+     */
+    public static int mask(Role role) {
+        return (role == null) ? 0 : (1 << role.ordinal());
+    }
 }
@@ -0,0 +1,123 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.init.GlobalConfig;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-flight request limit adapted to observed latency with a gradient, as in TCP Vegas. The average latency
+ * of each short window is compared to the long term average: while they stay within tolerance the limit grows
+ * by about its square root per window, and when latency grows the limit is cut proportionally, at most by half.
+ * <p>
+ * Admission is a single atomic increment. Windows are closed by whichever request thread finishes first after
+ * the window is over, so there's no background thread.
+ */
+public class AdaptiveConcurrencyLimit {
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 4;
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+    public static final double DEFAULT_TOLERANCE = 2.D;
+    public static final long DEFAULT_WINDOW = 100L;
+
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final double LONG_WINDOWS = 50.D;
+    private static final double SMOOTHING = 0.2D;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long window;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    private final AtomicLong windowEnd;
+    private final LongAdder windowRttSum = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimit(Properties properties) {
+        this.minLimit = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_MIN, String.valueOf(DEFAULT_MIN_LIMIT)));
+        this.maxLimit = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_MAX, String.valueOf(DEFAULT_MAX_LIMIT)));
+        this.tolerance = Double.parseDouble(properties.getProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_TOLERANCE, String.valueOf(DEFAULT_TOLERANCE)));
+        this.window = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(properties.getProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_WINDOW, String.valueOf(DEFAULT_WINDOW))));
+        this.limit = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_INITIAL, String.valueOf(DEFAULT_INITIAL_LIMIT)));
+        this.windowEnd = new AtomicLong(System.nanoTime() + window);
+    }
+
+    public boolean tryAcquire() {
+        int current = inFlight.incrementAndGet();
+        if (current > (int) limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+
+        if (current > windowMaxInFlight.get()) {
+            windowMaxInFlight.accumulateAndGet(current, Math::max);
+        }
+        return true;
+    }
+
+    /**
+     * Returns a permit without a latency sample, e.g. for a request that was shed after admission
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void release(long rttNanos) {
+        inFlight.decrementAndGet();
+
+        windowRttSum.add(rttNanos);
+        windowSamples.increment();
+
+        long now = System.nanoTime();
+        long end = windowEnd.get();
+        if ((now - end >= 0L) && windowEnd.compareAndSet(end, now + window)) {
+            closeWindow();
+        }
+    }
+
+    private synchronized void closeWindow() {
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttSum.sumThenReset();
+        int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+        if (samples < MIN_WINDOW_SAMPLES) {
+            return;
+        }
+
+        double shortRtt = (double) rttSum / samples;
+        if (longRtt == 0.D) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) / LONG_WINDOWS;
+            if (longRtt > 2.D * shortRtt) {
+                // load went down, so let the baseline follow faster
+                longRtt *= 0.95D;
+            }
+        }
+
+        double currentLimit = limit;
+        if (maxInFlight < currentLimit / 2.D) {
+            // the limit wasn't the bottleneck, so latency says nothing about it
+            return;
+        }
+
+        double gradient = Math.max(0.5D, Math.min(1.D, tolerance * longRtt / shortRtt));
+        double newLimit = currentLimit * gradient + Math.sqrt(currentLimit);
+        limit = Math.max(minLimit, Math.min(maxLimit, currentLimit * (1.D - SMOOTHING) + newLimit * SMOOTHING));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
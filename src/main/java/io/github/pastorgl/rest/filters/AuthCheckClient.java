@@ -0,0 +1,69 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+
+import javax.ws.rs.client.Client;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class AuthCheckClient implements AutoCloseable {
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+    public static final int DEFAULT_CONNECT_TIMEOUT = 1000;
+    public static final int DEFAULT_READ_TIMEOUT = 5000;
+    public static final long DEFAULT_IDLE_EVICTION = 30000L;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final ScheduledExecutorService idleConnectionEvictor;
+    private final Client client;
+
+    public AuthCheckClient(Properties properties) {
+        int maxConnections = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_AUTH_CLIENT_MAX_CONNECTIONS, String.valueOf(DEFAULT_MAX_CONNECTIONS)));
+        int connectTimeout = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_AUTH_CLIENT_CONNECT_TIMEOUT, String.valueOf(DEFAULT_CONNECT_TIMEOUT)));
+        int readTimeout = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_AUTH_CLIENT_READ_TIMEOUT, String.valueOf(DEFAULT_READ_TIMEOUT)));
+        long idleEviction = Long.parseLong(properties.getProperty(GlobalConfig.PROPERTY_AUTH_CLIENT_IDLE_EVICTION, String.valueOf(DEFAULT_IDLE_EVICTION)));
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        // all auth checks go to the single auth service host, so one route gets the whole pool
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setMaxTotal(maxConnections);
+
+        ClientConfig clientConfig = new ClientConfig()
+                .connectorProvider(new ApacheConnectorProvider())
+                .property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager)
+                // owned and shut down by close(), not by whichever Jersey client runtime happens to be released first
+                .property(ApacheClientProperties.CONNECTION_MANAGER_SHARED, true)
+                .property(ClientProperties.CONNECT_TIMEOUT, connectTimeout)
+                .property(ClientProperties.READ_TIMEOUT, readTimeout);
+
+        client = new JerseyClientBuilder().withConfig(clientConfig).build();
+
+        idleConnectionEvictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "auth-check-idle-connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        idleConnectionEvictor.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleEviction, TimeUnit.MILLISECONDS);
+        }, idleEviction, idleEviction, TimeUnit.MILLISECONDS);
+    }
+
+    public Client getClient() {
+        return client;
+    }
+
+    @Override
+    public void close() {
+        idleConnectionEvictor.shutdownNow();
+        client.close();
+        connectionManager.shutdown();
+    }
+}
@@ -0,0 +1,10 @@
+package io.github.pastorgl.rest.filters;
+
+public class AuthCheckUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public AuthCheckUnavailableException(String message) {
+        // failing fast is the expected outcome here, so no stack trace is captured
+        super(message, null, false, false);
+    }
+}
@@ -4,6 +4,7 @@ import org.apache.commons.lang3.StringUtils;
 
 public class AuthHeader {
     public static final AuthHeader EMPTY_AUTH_HEADER = new AuthHeader(null, null);
+    public static final AuthHeader UNSUPPORTED_AUTH_HEADER = new AuthHeader(AuthScheme.UNSUPPORTED, null);
 
     public final AuthScheme scheme;
     public final String param;
@@ -24,9 +25,11 @@ public class AuthHeader {
             return EMPTY_AUTH_HEADER;
         }
 
-        String authScheme = authorization.substring(0, delimiterIndex);
-        String params = authorization.substring(delimiterIndex + 1);
+        AuthScheme authScheme = AuthScheme.of(authorization, delimiterIndex);
+        if (authScheme == AuthScheme.UNSUPPORTED) {
+            return UNSUPPORTED_AUTH_HEADER;
+        }
 
-        return new AuthHeader(AuthScheme.valueOf(authScheme.toUpperCase()), params);
+        return new AuthHeader(authScheme, authorization.substring(delimiterIndex + 1));
     }
 }
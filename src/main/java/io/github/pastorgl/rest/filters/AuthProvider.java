@@ -1,15 +1,18 @@
 package io.github.pastorgl.rest.filters;
 
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import io.github.pastorgl.rest.cache.ExpiringCache;
 import io.github.pastorgl.rest.entity.AuthorizedUser;
+import io.github.pastorgl.rest.entity.Role;
 import io.github.pastorgl.rest.init.GlobalConfig;
-import org.glassfish.jersey.client.JerseyClientBuilder;
+import io.github.pastorgl.rest.metrics.RequestMetrics;
 
+import javax.annotation.PreDestroy;
 import javax.annotation.Priority;
-import javax.annotation.security.DenyAll;
-import javax.annotation.security.PermitAll;
-import javax.annotation.security.RolesAllowed;
 import javax.inject.Inject;
 import javax.ws.rs.Priorities;
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
 import javax.ws.rs.container.ResourceInfo;
@@ -17,43 +20,98 @@ import javax.ws.rs.core.*;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.ext.Provider;
 import java.lang.reflect.Method;
-import java.security.Principal;
+import java.util.Date;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import static javax.ws.rs.core.HttpHeaders.AUTHORIZATION;
 
 @Provider
 @Priority(Priorities.AUTHORIZATION)
-public class AuthProvider implements ContainerRequestFilter {
+public class AuthProvider implements ContainerRequestFilter, AutoCloseable {
+    // shared instances, don't abort with them: response filters modify headers of abort responses
     static public Response INTERNAL_ERROR = Response.status(Status.INTERNAL_SERVER_ERROR).build();
     static public Response FORBIDDEN = Response.status(Status.FORBIDDEN).build();
     static public Response NOT_FOUND = Response.status(Status.NOT_FOUND).build();
+    static public Response SERVICE_UNAVAILABLE = Response.status(Status.SERVICE_UNAVAILABLE).build();
+
+    private static final AuthCheckUnavailableException BREAKER_OPEN = new AuthCheckUnavailableException("Auth check circuit breaker is open");
+    private static final AuthCheckUnavailableException BULKHEAD_FULL = new AuthCheckUnavailableException("Too many concurrent auth checks");
+
+    public static final String AUTH_MODE_REMOTE = "remote";
+    public static final String AUTH_MODE_JWT = "jwt";
+
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+    public static final long DEFAULT_CACHE_TTL = 300L;
+    public static final int DEFAULT_NEGATIVE_CACHE_SIZE = 10000;
+    public static final long DEFAULT_NEGATIVE_CACHE_TTL = 30L;
 
     private ResourceInfo resourceInfo;
     private UriInfo uriInfo;
+    private Properties properties;
     private String authCheckEndpoint;
+    private volatile AuthCheckClient authCheckClient;
+    private JwtVerifier jwtVerifier;
+
+    private ExpiringCache<String, AuthorizedUser> tokenCache;
+    private long cacheTtl;
+    private ExpiringCache<String, Boolean> rejectedTokenCache;
+    private long negativeCacheTtl;
+
+    private final ConcurrentHashMap<Method, ResourceAuthorization> resourceAuthorizations = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<AuthorizedUser>> inFlightChecks = new ConcurrentHashMap<>();
+    private CircuitBreaker circuitBreaker;
+    private Semaphore bulkhead;
 
     @Inject
     public AuthProvider(Properties properties, @Context ResourceInfo resourceInfo, @Context UriInfo uriInfo) {
         this.resourceInfo = resourceInfo;
         this.uriInfo = uriInfo;
+        this.properties = properties;
         this.authCheckEndpoint = properties.getProperty(GlobalConfig.PROPERTY_AUTH_CHECK_ENDPOINT);
+
+        String authMode = properties.getProperty(GlobalConfig.PROPERTY_AUTH_MODE, AUTH_MODE_REMOTE);
+        if (AUTH_MODE_JWT.equalsIgnoreCase(authMode)) {
+            this.jwtVerifier = new JwtVerifier(properties);
+        } else if (!AUTH_MODE_REMOTE.equalsIgnoreCase(authMode)) {
+            throw new IllegalArgumentException("Unknown auth mode '" + authMode + "'");
+        }
+
+        this.circuitBreaker = new CircuitBreaker(properties);
+        this.bulkhead = new Semaphore(Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_AUTH_BULKHEAD_MAX_CALLS,
+                properties.getProperty(GlobalConfig.PROPERTY_AUTH_CLIENT_MAX_CONNECTIONS, String.valueOf(AuthCheckClient.DEFAULT_MAX_CONNECTIONS)))));
+
+        int cacheSize = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_AUTH_CACHE_SIZE, String.valueOf(DEFAULT_CACHE_SIZE)));
+        if (cacheSize > 0) {
+            this.tokenCache = new ExpiringCache<>(cacheSize);
+            this.cacheTtl = TimeUnit.SECONDS.toMillis(Long.parseLong(properties.getProperty(GlobalConfig.PROPERTY_AUTH_CACHE_TTL, String.valueOf(DEFAULT_CACHE_TTL))));
+        }
+
+        int negativeCacheSize = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_AUTH_NEGATIVE_CACHE_SIZE, String.valueOf(DEFAULT_NEGATIVE_CACHE_SIZE)));
+        if (negativeCacheSize > 0) {
+            this.rejectedTokenCache = new ExpiringCache<>(negativeCacheSize);
+            this.negativeCacheTtl = TimeUnit.SECONDS.toMillis(Long.parseLong(properties.getProperty(GlobalConfig.PROPERTY_AUTH_NEGATIVE_CACHE_TTL, String.valueOf(DEFAULT_NEGATIVE_CACHE_TTL))));
+        }
     }
 
     @Override
     public void filter(ContainerRequestContext requestContext) {
-        if (uriInfo.getPath().startsWith("openapi.") || uriInfo.getAbsolutePath().toString().startsWith(authCheckEndpoint)) {
+        if (uriInfo.getPath().startsWith("openapi.")
+                || ((authCheckEndpoint != null) && uriInfo.getAbsolutePath().toString().startsWith(authCheckEndpoint))) {
             return;
         }
 
-        Method method = resourceInfo.getResourceMethod();
-        if (method.isAnnotationPresent(DenyAll.class)) {
-            requestContext.abortWith(FORBIDDEN);
-        } else if (method.isAnnotationPresent(PermitAll.class) || method.isAnnotationPresent(RolesAllowed.class)) {
+        ResourceAuthorization authorization = authorizationOf(resourceInfo.getResourceClass(), resourceInfo.getResourceMethod());
+        if (authorization.getMode() == ResourceAuthorization.Mode.DENY_ALL) {
+            requestContext.abortWith(Response.status(Status.FORBIDDEN).build());
+        } else if (authorization.requiresAuthentication()) {
             MultivaluedMap<String, String> headers = requestContext.getHeaders();
-            String authorization = headers.getFirst(AUTHORIZATION);
-
-            AuthHeader authHeader = AuthHeader.parse(authorization);
+            AuthHeader authHeader = AuthHeader.parse(headers.getFirst(AUTHORIZATION));
 
             if (AuthHeader.EMPTY_AUTH_HEADER.equals(authHeader)) {
                 // Returning request for authorization
@@ -63,71 +121,368 @@ public class AuthProvider implements ContainerRequestFilter {
             }
 
             if (authHeader.scheme == AuthScheme.BEARER) {
+                ServerTiming timing = ServerTiming.of(requestContext);
+                if (timing != null) {
+                    timing.authStarted();
+                }
+
                 try {
-                    AuthorizedUser user = callAuthCheckEndpoint(authCheckEndpoint, authHeader);
+                    AuthorizedUser user = checkToken(authHeader, timing);
+                    if (timing != null) {
+                        timing.authFinished();
+                    }
 
-                    if (user == null) {
-                        requestContext.abortWith(FORBIDDEN);
+                    if ((user == null) || !authorization.allows(user.roleMask())) {
+                        requestContext.abortWith(Response.status(Status.FORBIDDEN).build());
 
                         return;
                     }
 
-                    boolean allowed = false;
+                    SecurityContext containerContext = requestContext.getSecurityContext();
+                    requestContext.setSecurityContext(new UserSecurityContext(user,
+                            (containerContext != null) && containerContext.isSecure(), "Bearer"));
+                } catch (AuthCheckUnavailableException e) {
+                    requestContext.abortWith(Response.status(Status.SERVICE_UNAVAILABLE).build());
+                } catch (CompletionException e) {
+                    requestContext.abortWith(Response.status((e.getCause() instanceof AuthCheckUnavailableException) ? Status.SERVICE_UNAVAILABLE : Status.FORBIDDEN).build());
+                } catch (Exception ignored) {
+                    requestContext.abortWith(Response.status(Status.FORBIDDEN).build());
+                }
+            } else {
+                requestContext.abortWith(Response.status(Status.FORBIDDEN).build());
+            }
+        }
+    }
 
-                    if (method.isAnnotationPresent(RolesAllowed.class)) {
-                        String[] roles = method.getAnnotation(RolesAllowed.class).value();
+    private ResourceAuthorization authorizationOf(Class<?> resourceClass, Method method) {
+        if (method == null) {
+            return ResourceAuthorization.of(resourceClass, null);
+        }
 
-                        String userRole = user.getRole().name();
-                        for (String role : roles) {
-                            if (userRole.equalsIgnoreCase(role)) {
-                                allowed = true;
-                                break;
-                            }
-                        }
+        ResourceAuthorization authorization = resourceAuthorizations.get(method);
+        if (authorization == null) {
+            authorization = ResourceAuthorization.of(resourceClass, method);
+            resourceAuthorizations.putIfAbsent(method, authorization);
+        }
 
-                        if (!allowed) {
-                            requestContext.abortWith(FORBIDDEN);
+        return authorization;
+    }
 
-                            return;
-                        }
-                    }
+    public ExpiringCache<String, AuthorizedUser> getTokenCache() {
+        return tokenCache;
+    }
 
-                    requestContext.setSecurityContext(new SecurityContext() {
-                        @Override
-                        public Principal getUserPrincipal() {
-                            return user;
-                        }
-
-                        @Override
-                        public boolean isUserInRole(String role) {
-                            return true;
-                        }
-
-                        @Override
-                        public boolean isSecure() {
-                            return "https".equals(uriInfo.getRequestUri().getScheme());
-                        }
-
-                        @Override
-                        public String getAuthenticationScheme() {
-                            return "Bearer";
-                        }
-                    });
-                } catch (Exception ignored) {
-                    requestContext.abortWith(FORBIDDEN);
+    public ExpiringCache<String, Boolean> getRejectedTokenCache() {
+        return rejectedTokenCache;
+    }
+
+    /**
+     * Resolves the bearer token to a user, or to null if the token is rejected. A token that is not cached
+     * is checked in the calling thread, or awaited if another thread is checking it already
+     */
+    public AuthorizedUser checkToken(AuthHeader authHeader) {
+        return checkToken(authHeader, null);
+    }
+
+    private AuthorizedUser checkToken(AuthHeader authHeader, ServerTiming timing) {
+        if (jwtVerifier != null) {
+            if (timing != null) {
+                timing.authSource(ServerTiming.AUTH_JWT);
+            }
+            return jwtVerifier.verify(authHeader.param);
+        }
+
+        String token = authHeader.param;
+
+        if (tokenCache != null) {
+            AuthorizedUser user = tokenCache.get(token);
+            if (user != null) {
+                if (timing != null) {
+                    timing.authSource(ServerTiming.AUTH_CACHE);
                 }
+                return user;
+            }
+        }
+
+        if ((rejectedTokenCache != null) && (rejectedTokenCache.get(token) != null)) {
+            if (timing != null) {
+                timing.authSource(ServerTiming.AUTH_CACHE);
+            }
+            return null;
+        }
+
+        if (timing != null) {
+            timing.authSource(ServerTiming.AUTH_REMOTE);
+        }
+
+        // concurrent requests with the same token share a single call to the auth check endpoint
+        CompletableFuture<AuthorizedUser> check = new CompletableFuture<>();
+        CompletableFuture<AuthorizedUser> inFlight = inFlightChecks.putIfAbsent(token, check);
+        if (inFlight != null) {
+            return inFlight.join();
+        }
+
+        AuthCheckUnavailableException unavailable = acquireCheckPermission();
+        if (unavailable != null) {
+            inFlightChecks.remove(token, check);
+            check.completeExceptionally(unavailable);
+            throw unavailable;
+        }
+
+        long start = System.nanoTime();
+        AuthorizedUser user;
+        try {
+            user = callAuthCheckEndpoint(authCheckEndpoint, authHeader);
+        } catch (RuntimeException e) {
+            completeCheck(token, check, start, null, e);
+            throw e;
+        }
+
+        completeCheck(token, check, start, user, null);
+        return user;
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #checkToken(AuthHeader)}, with the same cache, coalescing of concurrent
+     * checks of one token, circuit breaker and bulkhead. A token that is not cached is checked via the
+     * {@link javax.ws.rs.client.Invocation.Builder#rx() rx()} invoker of the auth check client, so the calling
+     * thread never waits for the auth service. The stage completes with the user, or with null if the token is
+     * rejected, or exceptionally with {@link AuthCheckUnavailableException} if the auth service can't be asked
+     */
+    public CompletionStage<AuthorizedUser> checkTokenAsync(AuthHeader authHeader) {
+        CompletableFuture<AuthorizedUser> result = new CompletableFuture<>();
+
+        if (jwtVerifier != null) {
+            try {
+                result.complete(jwtVerifier.verify(authHeader.param));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+            return result;
+        }
+
+        String token = authHeader.param;
+
+        if (tokenCache != null) {
+            AuthorizedUser user = tokenCache.get(token);
+            if (user != null) {
+                result.complete(user);
+                return result;
+            }
+        }
+
+        if ((rejectedTokenCache != null) && (rejectedTokenCache.get(token) != null)) {
+            result.complete(null);
+            return result;
+        }
+
+        CompletableFuture<AuthorizedUser> inFlight = inFlightChecks.putIfAbsent(token, result);
+        if (inFlight != null) {
+            return inFlight;
+        }
+
+        AuthCheckUnavailableException unavailable = acquireCheckPermission();
+        if (unavailable != null) {
+            inFlightChecks.remove(token, result);
+            result.completeExceptionally(unavailable);
+            return result;
+        }
+
+        long start = System.nanoTime();
+        CompletionStage<AuthorizedUser> call;
+        try {
+            call = callAuthCheckEndpointAsync(authCheckEndpoint, authHeader);
+        } catch (RuntimeException e) {
+            completeCheck(token, result, start, null, e);
+            return result;
+        }
+
+        call.whenComplete((user, e) -> completeCheck(token, result, start, user,
+                ((e instanceof CompletionException) && (e.getCause() != null)) ? e.getCause() : e));
+        return result;
+    }
+
+    /**
+     * Applies the same rules as the filter does for {@link javax.annotation.security.RolesAllowed} or, without
+     * roles, {@link javax.annotation.security.PermitAll}, but without blocking. It's meant for resource methods
+     * that take a {@link javax.ws.rs.container.Suspended} {@link javax.ws.rs.container.AsyncResponse} and carry
+     * no security annotations themselves, so the filter lets their requests through unchecked:
+     * <pre>
+     * &#64;GET
+     * public void get(&#64;HeaderParam(HttpHeaders.AUTHORIZATION) String authorization, &#64;Suspended AsyncResponse response) {
+     *     authProvider.authorizeAsync(authorization, Role.ADMIN).whenComplete((user, e) -&gt; {
+     *         if (e != null) {
+     *             response.resume(e);
+     *         } else {
+     *             response.resume(...);
+     *         }
+     *     });
+     * }
+     * </pre>
+     * The stage fails with a {@link StatusException} of 401, 403 or 503, whichever the filter would abort with
+     *
+     * @param authorization value of Authorization header
+     * @param rolesAllowed  roles of which the user must have any, or none to allow every authenticated user
+     */
+    public CompletionStage<AuthorizedUser> authorizeAsync(String authorization, Role... rolesAllowed) {
+        CompletableFuture<AuthorizedUser> result = new CompletableFuture<>();
+
+        AuthHeader authHeader = AuthHeader.parse(authorization);
+        if (AuthHeader.EMPTY_AUTH_HEADER.equals(authHeader)) {
+            result.completeExceptionally(StatusException.of(Status.UNAUTHORIZED));
+            return result;
+        }
+        if (authHeader.scheme != AuthScheme.BEARER) {
+            result.completeExceptionally(StatusException.of(Status.FORBIDDEN));
+            return result;
+        }
+
+        int roleMask = 0;
+        for (Role role : rolesAllowed) {
+            roleMask |= Role.mask(role);
+        }
+        int required = roleMask;
+
+        checkTokenAsync(authHeader).whenComplete((user, e) -> {
+            if (e != null) {
+                Throwable cause = ((e instanceof CompletionException) && (e.getCause() != null)) ? e.getCause() : e;
+                result.completeExceptionally(StatusException.of((cause instanceof AuthCheckUnavailableException)
+                        ? Status.SERVICE_UNAVAILABLE : Status.FORBIDDEN));
+            } else if ((user == null) || ((rolesAllowed.length > 0) && ((user.roleMask() & required) == 0))) {
+                result.completeExceptionally(StatusException.of(Status.FORBIDDEN));
             } else {
-                requestContext.abortWith(FORBIDDEN);
+                result.complete(user);
             }
+        });
+        return result;
+    }
+
+    /**
+     * @return null if the auth service may be called, or the reason why it may not
+     */
+    private AuthCheckUnavailableException acquireCheckPermission() {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return BREAKER_OPEN;
         }
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.releasePermission();
+            return BULKHEAD_FULL;
+        }
+
+        return null;
+    }
+
+    private void completeCheck(String token, CompletableFuture<AuthorizedUser> check, long start, AuthorizedUser user, Throwable failure) {
+        bulkhead.release();
+        long duration = System.nanoTime() - start;
+        circuitBreaker.onResult(duration, failure != null);
+        RequestMetrics.getDefault().recordAuthCheck(duration, failure != null);
+
+        if (failure != null) {
+            check.completeExceptionally(failure);
+        } else {
+            if (user != null) {
+                if (tokenCache != null) {
+                    tokenCache.put(token, user, cacheExpiration(token));
+                }
+            } else if (rejectedTokenCache != null) {
+                rejectedTokenCache.put(token, Boolean.TRUE, System.currentTimeMillis() + negativeCacheTtl);
+            }
+
+            check.complete(user);
+        }
+
+        inFlightChecks.remove(token, check);
+    }
+
+    private long cacheExpiration(String token) {
+        long expiresAt = System.currentTimeMillis() + cacheTtl;
+
+        // JWT bearer tokens carry their own expiry, which must never be outlived by the cache entry
+        if (token.indexOf('.') > 0) {
+            try {
+                Date tokenExpiresAt = JWT.decode(token).getExpiresAt();
+                if (tokenExpiresAt != null) {
+                    expiresAt = Math.min(expiresAt, tokenExpiresAt.getTime());
+                }
+            } catch (JWTDecodeException ignored) {
+            }
+        }
+
+        return expiresAt;
+    }
+
+    protected AuthCheckClient getAuthCheckClient() {
+        AuthCheckClient client = authCheckClient;
+        if (client == null) {
+            synchronized (this) {
+                client = authCheckClient;
+                if (client == null) {
+                    authCheckClient = client = new AuthCheckClient(properties);
+                }
+            }
+        }
+
+        return client;
     }
 
     protected AuthorizedUser callAuthCheckEndpoint(String authCheckEndpoint, AuthHeader authHeader) {
-        return new JerseyClientBuilder().build()
+        try (Response response = getAuthCheckClient().getClient()
                 .target(authCheckEndpoint + "/check")
                 .request()
                 .header(AUTHORIZATION, "bearer " + authHeader.param)
+                .post(null)) {
+            return readAuthorizedUser(response);
+        }
+    }
+
+    protected CompletionStage<AuthorizedUser> callAuthCheckEndpointAsync(String authCheckEndpoint, AuthHeader authHeader) {
+        return getAuthCheckClient().getClient()
+                .target(authCheckEndpoint + "/check")
+                .request()
+                .header(AUTHORIZATION, "bearer " + authHeader.param)
+                .rx()
                 .post(null)
-                .readEntity(AuthorizedUser.class);
+                .thenApply(response -> {
+                    try (Response r = response) {
+                        return readAuthorizedUser(r);
+                    }
+                });
+    }
+
+    /**
+     * Rejected token is not a failure of the auth service, so it is distinguished from other errors which
+     * the circuit breaker counts and which are never cached
+     */
+    private static AuthorizedUser readAuthorizedUser(Response response) {
+        int status = response.getStatus();
+        if (response.getStatusInfo().getFamily() == Status.Family.SUCCESSFUL) {
+            return response.readEntity(AuthorizedUser.class);
+        }
+
+        if ((status == Status.UNAUTHORIZED.getStatusCode()) || (status == Status.FORBIDDEN.getStatusCode())) {
+            return null;
+        }
+
+        if ((status == Status.REQUEST_TIMEOUT.getStatusCode()) || (status == Status.TOO_MANY_REQUESTS.getStatusCode())) {
+            throw new AuthCheckUnavailableException("Auth check endpoint responded with HTTP " + status);
+        }
+
+        throw new ProcessingException("Auth check endpoint responded with HTTP " + status);
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        synchronized (this) {
+            if (authCheckClient != null) {
+                authCheckClient.close();
+                authCheckClient = null;
+            }
+        }
+
+        if (jwtVerifier != null) {
+            jwtVerifier.close();
+        }
     }
 }
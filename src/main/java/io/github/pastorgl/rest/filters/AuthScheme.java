@@ -2,5 +2,23 @@ package io.github.pastorgl.rest.filters;
 
 public enum AuthScheme {
     BEARER,
-    DIGEST
+    DIGEST,
+    UNSUPPORTED;
+
+    private static final AuthScheme[] SUPPORTED = {BEARER, DIGEST};
+
+    /**
+     * Case-insensitively matches the scheme name at the start of the header value, without
+     * allocating anything and without throwing for unknown schemes
+     */
+    public static AuthScheme of(String header, int length) {
+        for (AuthScheme scheme : SUPPORTED) {
+            String name = scheme.name();
+            if ((name.length() == length) && header.regionMatches(true, 0, name, 0, length)) {
+                return scheme;
+            }
+        }
+
+        return UNSUPPORTED;
+    }
 }
@@ -1,49 +1,93 @@
 package io.github.pastorgl.rest.filters;
 
+import org.apache.commons.lang3.StringUtils;
+
 import javax.annotation.Priority;
+import javax.inject.Inject;
 import javax.ws.rs.Priorities;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
 import javax.ws.rs.container.ContainerResponseContext;
 import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.ext.Provider;
+import java.util.List;
+import java.util.Properties;
 
-import static javax.ws.rs.HttpMethod.*;
-import static javax.ws.rs.core.HttpHeaders.*;
+import static javax.ws.rs.HttpMethod.OPTIONS;
 
 @Provider
 @Priority(Priorities.AUTHENTICATION)
 public class CORSFilter implements ContainerResponseFilter, ContainerRequestFilter {
-    private static final String HEADER_ACCESS_CONTROL_ALLOW_ORIGIN = "Access-Control-Allow-Origin";
-    private static final String HEADER_ACCESS_CONTROL_ALLOW_HEADERS = "Access-Control-Allow-Headers";
-    private static final String HEADER_ACCESS_CONTROL_ALLOW_CREDENTIALS = "Access-Control-Allow-Credentials";
-    private static final String HEADER_ACCESS_CONTROL_ALLOW_METHODS = "Access-Control-Allow-Methods";
-    private static final String HEADER_ACCESS_CONTROL_MAX_AGE = "Access-Control-Max-Age";
-    private static final String HEADER_ACCESS_CONTROL_EXPOSE_HEADERS = "Access-Control-Expose-Headers";
-    private static final String HEADER_ORIGIN = "Origin";
-
-    private static final String HEADER_ALLOWED_HEADERS = String.join(", ", HEADER_ORIGIN, CONTENT_TYPE, ACCEPT, AUTHORIZATION, WWW_AUTHENTICATE);
-    private static final String HEADER_ALLOWED_METHODS = String.join(", ", GET, POST, PUT, DELETE, OPTIONS, HEAD);
-    private static final String HEADER_EXPOSED_HEADERS = String.join(", ", WWW_AUTHENTICATE, AUTHORIZATION);
+    static final String HEADER_ACCESS_CONTROL_ALLOW_ORIGIN = "Access-Control-Allow-Origin";
+    static final String HEADER_ACCESS_CONTROL_ALLOW_HEADERS = "Access-Control-Allow-Headers";
+    static final String HEADER_ACCESS_CONTROL_ALLOW_CREDENTIALS = "Access-Control-Allow-Credentials";
+    static final String HEADER_ACCESS_CONTROL_ALLOW_METHODS = "Access-Control-Allow-Methods";
+    static final String HEADER_ACCESS_CONTROL_MAX_AGE = "Access-Control-Max-Age";
+    static final String HEADER_ACCESS_CONTROL_EXPOSE_HEADERS = "Access-Control-Expose-Headers";
+
+    private final CORSPolicy policy;
+
+    public CORSFilter() {
+        this(new Properties());
+    }
+
+    @Inject
+    public CORSFilter(Properties properties) {
+        this.policy = new CORSPolicy(properties);
+    }
 
     @Override
     public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (requestContext.getProperty(CORSPreflightFilter.PREFLIGHT_PROPERTY) != null) {
+            return;
+        }
+
+        String allowOrigin = policy.allowOrigin(requestContext.getHeaderString(CORSPolicy.HEADER_ORIGIN));
+        if (allowOrigin == null) {
+            return;
+        }
+
+        // putSingle, not add: aborting responses may be shared instances
         MultivaluedMap<String, Object> headers = responseContext.getHeaders();
-        String origin = requestContext.getHeaderString(HEADER_ORIGIN);
-        headers.add(HEADER_ACCESS_CONTROL_ALLOW_ORIGIN, (origin == null) ? "*" : origin);
-        headers.add(HEADER_ACCESS_CONTROL_EXPOSE_HEADERS, HEADER_EXPOSED_HEADERS);
+        headers.putSingle(HEADER_ACCESS_CONTROL_ALLOW_ORIGIN, allowOrigin);
+        headers.putSingle(HEADER_ACCESS_CONTROL_EXPOSE_HEADERS, policy.getExposedHeaders());
+        if (!policy.isAnyOrigin()) {
+            addVary(headers, CORSPolicy.HEADER_ORIGIN);
+        }
+        // browsers require it on the actual response too, not only on the preflight
+        if (policy.isAllowCredentials()) {
+            headers.putSingle(HEADER_ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
+        }
 
         if (requestContext.getMethod().equals(OPTIONS)) {
-            headers.add(HEADER_ACCESS_CONTROL_ALLOW_METHODS, HEADER_ALLOWED_METHODS);
-            headers.add(HEADER_ACCESS_CONTROL_ALLOW_HEADERS, HEADER_ALLOWED_HEADERS);
-            headers.add(HEADER_ACCESS_CONTROL_ALLOW_CREDENTIALS, true);
-            headers.add(HEADER_ACCESS_CONTROL_MAX_AGE, "1209600");
+            headers.putSingle(HEADER_ACCESS_CONTROL_ALLOW_METHODS, policy.getAllowedMethods());
+            headers.putSingle(HEADER_ACCESS_CONTROL_ALLOW_HEADERS, policy.getAllowedHeaders());
+            headers.putSingle(HEADER_ACCESS_CONTROL_MAX_AGE, policy.getMaxAge());
         }
     }
 
+    /**
+     * Keeps whatever the resource varies on, and adds the header unless it's listed already
+     */
+    private static void addVary(MultivaluedMap<String, Object> headers, String header) {
+        List<Object> vary = headers.get(HttpHeaders.VARY);
+        if (vary != null) {
+            for (Object value : vary) {
+                for (String name : StringUtils.split(String.valueOf(value), ", ")) {
+                    if (name.equalsIgnoreCase(header) || "*".equals(name)) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        headers.add(HttpHeaders.VARY, header);
+    }
+
     @Override
     public void filter(ContainerRequestContext requestContext) {
         if (requestContext.getMethod().equals(OPTIONS)) {
@@ -0,0 +1,127 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.cache.ExpiringCache;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static javax.ws.rs.HttpMethod.*;
+import static javax.ws.rs.core.HttpHeaders.*;
+
+/**
+ * CORS settings with all response header values built once. Allowed origins are exact origins, wildcard
+ * subdomain patterns like <code>https://*.example.com</code>, or <code>*</code> for any origin.
+ * <p>
+ * Credentials are allowed only by explicit setting and only for listed origins: with <code>*</code>, any site
+ * could make credentialed calls on behalf of the user.
+ */
+public class CORSPolicy {
+    public static final String HEADER_ORIGIN = "Origin";
+
+    public static final String DEFAULT_ALLOWED_ORIGINS = "*";
+    public static final String DEFAULT_ALLOWED_METHODS = String.join(", ", GET, POST, PUT, DELETE, OPTIONS, HEAD);
+    public static final String DEFAULT_ALLOWED_HEADERS = String.join(", ", HEADER_ORIGIN, CONTENT_TYPE, ACCEPT, AUTHORIZATION, WWW_AUTHENTICATE);
+    public static final String DEFAULT_EXPOSED_HEADERS = String.join(", ", WWW_AUTHENTICATE, AUTHORIZATION);
+    public static final long DEFAULT_MAX_AGE = 1209600L;
+    public static final int DEFAULT_ORIGIN_CACHE_SIZE = 1000;
+
+    private final boolean anyOrigin;
+    private final Set<String> exactOrigins = new HashSet<>();
+    private final Pattern wildcardOrigins;
+    private final ExpiringCache<String, Boolean> originMatches;
+
+    private final String allowedMethods;
+    private final String allowedHeaders;
+    private final String exposedHeaders;
+    private final String maxAge;
+    private final boolean allowCredentials;
+
+    public CORSPolicy(Properties properties) {
+        List<String> wildcards = new ArrayList<>();
+        boolean anyOrigin = false;
+        for (String origin : StringUtils.split(properties.getProperty(GlobalConfig.PROPERTY_CORS_ALLOWED_ORIGINS, DEFAULT_ALLOWED_ORIGINS), ", ")) {
+            if ("*".equals(origin)) {
+                anyOrigin = true;
+            } else if (origin.contains("*")) {
+                wildcards.add(Pattern.quote(origin.toLowerCase(Locale.ROOT)).replace("*", "\\E[^./:]+(?:\\.[^./:]+)*\\Q"));
+            } else {
+                exactOrigins.add(origin.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        this.anyOrigin = anyOrigin;
+        this.wildcardOrigins = wildcards.isEmpty() ? null : Pattern.compile(String.join("|", wildcards));
+        this.originMatches = (wildcardOrigins == null) ? null : new ExpiringCache<>(Integer.parseInt(
+                properties.getProperty(GlobalConfig.PROPERTY_CORS_ORIGIN_CACHE_SIZE, String.valueOf(DEFAULT_ORIGIN_CACHE_SIZE))));
+
+        this.allowedMethods = properties.getProperty(GlobalConfig.PROPERTY_CORS_ALLOWED_METHODS, DEFAULT_ALLOWED_METHODS);
+        this.allowedHeaders = properties.getProperty(GlobalConfig.PROPERTY_CORS_ALLOWED_HEADERS, DEFAULT_ALLOWED_HEADERS);
+        this.exposedHeaders = properties.getProperty(GlobalConfig.PROPERTY_CORS_EXPOSED_HEADERS, DEFAULT_EXPOSED_HEADERS);
+        this.maxAge = properties.getProperty(GlobalConfig.PROPERTY_CORS_MAX_AGE, String.valueOf(DEFAULT_MAX_AGE));
+        this.allowCredentials = Boolean.parseBoolean(properties.getProperty(GlobalConfig.PROPERTY_CORS_ALLOW_CREDENTIALS, "false"));
+        if (anyOrigin && allowCredentials) {
+            throw new IllegalArgumentException("CORS credentials can't be allowed for any origin, list allowed origins explicitly");
+        }
+    }
+
+    /**
+     * @return value for Access-Control-Allow-Origin, or null if the origin is not allowed
+     */
+    public String allowOrigin(String origin) {
+        if (anyOrigin) {
+            return "*";
+        }
+
+        if (origin == null) {
+            return null;
+        }
+
+        String normalized = origin.toLowerCase(Locale.ROOT);
+        if (exactOrigins.contains(normalized)) {
+            return origin;
+        }
+
+        if (wildcardOrigins == null) {
+            return null;
+        }
+
+        Boolean matches = originMatches.get(normalized);
+        if (matches == null) {
+            matches = wildcardOrigins.matcher(normalized).matches();
+            originMatches.put(normalized, matches, Long.MAX_VALUE);
+        }
+
+        return matches ? origin : null;
+    }
+
+    public boolean isAnyOrigin() {
+        return anyOrigin;
+    }
+
+    public String getAllowedMethods() {
+        return allowedMethods;
+    }
+
+    public String getAllowedHeaders() {
+        return allowedHeaders;
+    }
+
+    public String getExposedHeaders() {
+        return exposedHeaders;
+    }
+
+    public String getMaxAge() {
+        return maxAge;
+    }
+
+    public boolean isAllowCredentials() {
+        return allowCredentials;
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.cache.ExpiringCache;
+import io.github.pastorgl.rest.init.GlobalConfig;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.Provider;
+import java.util.Properties;
+
+import static javax.ws.rs.HttpMethod.OPTIONS;
+
+/**
+ * Answers CORS preflight requests before resource matching, so they never reach authorization or other filters
+ */
+@Provider
+@PreMatching
+@Priority(Priorities.AUTHENTICATION)
+public class CORSPreflightFilter implements ContainerRequestFilter {
+    public static final String PREFLIGHT_PROPERTY = CORSPreflightFilter.class.getName() + ".preflight";
+
+    private static final String HEADER_ACCESS_CONTROL_REQUEST_METHOD = "Access-Control-Request-Method";
+    private static final Response NOT_ALLOWED = Response.status(Status.NO_CONTENT).build();
+
+    private final CORSPolicy policy;
+    private final ExpiringCache<String, Response> preflightResponses;
+
+    public CORSPreflightFilter() {
+        this(new Properties());
+    }
+
+    @Inject
+    public CORSPreflightFilter(Properties properties) {
+        this.policy = new CORSPolicy(properties);
+        this.preflightResponses = new ExpiringCache<>(Integer.parseInt(
+                properties.getProperty(GlobalConfig.PROPERTY_CORS_ORIGIN_CACHE_SIZE, String.valueOf(CORSPolicy.DEFAULT_ORIGIN_CACHE_SIZE))));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!requestContext.getMethod().equals(OPTIONS)) {
+            return;
+        }
+
+        String origin = requestContext.getHeaderString(CORSPolicy.HEADER_ORIGIN);
+        if ((origin == null) || (requestContext.getHeaderString(HEADER_ACCESS_CONTROL_REQUEST_METHOD) == null)) {
+            return;
+        }
+
+        requestContext.setProperty(PREFLIGHT_PROPERTY, Boolean.TRUE);
+
+        String allowOrigin = policy.allowOrigin(origin);
+        Response preflight = NOT_ALLOWED;
+        if (allowOrigin != null) {
+            preflight = preflightResponses.get(allowOrigin);
+            if (preflight == null) {
+                preflight = preflightResponse(allowOrigin);
+                preflightResponses.put(allowOrigin, preflight, Long.MAX_VALUE);
+            }
+        }
+
+        // response filters may still touch headers, so each request gets its own shallow copy of the prebuilt one
+        requestContext.abortWith(Response.fromResponse(preflight).build());
+    }
+
+    private Response preflightResponse(String allowOrigin) {
+        Response.ResponseBuilder builder = Response.status(Status.NO_CONTENT)
+                .header(CORSFilter.HEADER_ACCESS_CONTROL_ALLOW_ORIGIN, allowOrigin)
+                .header(CORSFilter.HEADER_ACCESS_CONTROL_ALLOW_METHODS, policy.getAllowedMethods())
+                .header(CORSFilter.HEADER_ACCESS_CONTROL_ALLOW_HEADERS, policy.getAllowedHeaders())
+                .header(CORSFilter.HEADER_ACCESS_CONTROL_EXPOSE_HEADERS, policy.getExposedHeaders())
+                .header(CORSFilter.HEADER_ACCESS_CONTROL_MAX_AGE, policy.getMaxAge());
+
+        if (policy.isAllowCredentials()) {
+            builder.header(CORSFilter.HEADER_ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
+        }
+        if (!policy.isAnyOrigin()) {
+            builder.header(HttpHeaders.VARY, CORSPolicy.HEADER_ORIGIN);
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.init.GlobalConfig;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Count-based sliding window circuit breaker. Opens when either the failure rate or the slow call rate of
+ * the last calls reaches its threshold, then after a pause lets a few probe calls through in half-open state,
+ * and closes again only if all of them succeed in time.
+ */
+public class CircuitBreaker {
+    public static final int DEFAULT_WINDOW_SIZE = 50;
+    public static final int DEFAULT_MIN_CALLS = 10;
+    public static final int DEFAULT_FAILURE_RATE = 50;
+    public static final int DEFAULT_SLOW_CALL_RATE = 80;
+    public static final long DEFAULT_SLOW_CALL_DURATION = 2000L;
+    public static final long DEFAULT_OPEN_DURATION = 10000L;
+    public static final int DEFAULT_HALF_OPEN_CALLS = 3;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int minCalls;
+    private final int failureRate;
+    private final int slowCallRate;
+    private final long slowCallDuration;
+    private final long openDuration;
+    private final int halfOpenCalls;
+
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int position;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(Properties properties) {
+        int windowSize = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_AUTH_BREAKER_WINDOW, String.valueOf(DEFAULT_WINDOW_SIZE)));
+        this.failed = new boolean[windowSize];
+        this.slow = new boolean[windowSize];
+        this.minCalls = Math.min(windowSize, Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_AUTH_BREAKER_MIN_CALLS, String.valueOf(DEFAULT_MIN_CALLS))));
+        this.failureRate = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_AUTH_BREAKER_FAILURE_RATE, String.valueOf(DEFAULT_FAILURE_RATE)));
+        this.slowCallRate = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_AUTH_BREAKER_SLOW_CALL_RATE, String.valueOf(DEFAULT_SLOW_CALL_RATE)));
+        this.slowCallDuration = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(properties.getProperty(GlobalConfig.PROPERTY_AUTH_BREAKER_SLOW_CALL_DURATION, String.valueOf(DEFAULT_SLOW_CALL_DURATION))));
+        this.openDuration = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(properties.getProperty(GlobalConfig.PROPERTY_AUTH_BREAKER_OPEN_DURATION, String.valueOf(DEFAULT_OPEN_DURATION))));
+        this.halfOpenCalls = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_AUTH_BREAKER_HALF_OPEN_CALLS, String.valueOf(DEFAULT_HALF_OPEN_CALLS)));
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    @SuppressWarnings("fallthrough")
+    public synchronized boolean tryAcquirePermission() {
+        switch (state) {
+            case CLOSED: {
+                return true;
+            }
+            case OPEN: {
+                if (System.nanoTime() - openedAt < openDuration) {
+                    return false;
+                }
+
+                state = State.HALF_OPEN;
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSuccesses = 0;
+                // fall through
+            }
+            default: {
+                if (halfOpenPermits > 0) {
+                    halfOpenPermits--;
+                    return true;
+                }
+
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Returns a permission that was acquired but not used for a call
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    public synchronized void onResult(long durationNanos, boolean failure) {
+        boolean slowCall = durationNanos >= slowCallDuration;
+
+        switch (state) {
+            case HALF_OPEN: {
+                if (failure || slowCall) {
+                    open();
+                } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                    state = State.CLOSED;
+                    resetWindow();
+                }
+                break;
+            }
+            case CLOSED: {
+                if (recorded == failed.length) {
+                    failures -= failed[position] ? 1 : 0;
+                    slowCalls -= slow[position] ? 1 : 0;
+                } else {
+                    recorded++;
+                }
+
+                failed[position] = failure;
+                slow[position] = slowCall;
+                failures += failure ? 1 : 0;
+                slowCalls += slowCall ? 1 : 0;
+                position = (position + 1) % failed.length;
+
+                if ((recorded >= minCalls)
+                        && ((failures * 100 >= failureRate * recorded) || (slowCalls * 100 >= slowCallRate * recorded))) {
+                    open();
+                }
+                break;
+            }
+            default: {
+                // late outcome of a call started before the breaker had opened
+            }
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        Arrays.fill(failed, false);
+        Arrays.fill(slow, false);
+        position = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
@@ -0,0 +1,277 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.init.GlobalConfig;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Compresses response entities with gzip, or deflate if enabled, as negotiated by Accept-Encoding. Off unless
+ * enabled in properties. Entities smaller than the threshold are sent as is. Deflaters are pooled, so native
+ * zlib state isn't allocated per response.
+ */
+@Provider
+@Priority(Priorities.USER + 100)
+public class CompressionWriterInterceptor implements WriterInterceptor {
+    public static final int DEFAULT_MIN_SIZE = 1024;
+    public static final int DEFAULT_LEVEL = Deflater.DEFAULT_COMPRESSION;
+    public static final int DEFAULT_POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+
+    public static final String ENCODING_GZIP = "gzip";
+    public static final String ENCODING_DEFLATE = "deflate";
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private HttpHeaders httpHeaders;
+
+    private final boolean enabled;
+    private final boolean deflate;
+    private final int minSize;
+    private final int level;
+
+    private final BlockingQueue<Deflater> gzipDeflaters;
+    private final BlockingQueue<Deflater> zlibDeflaters;
+
+    @Inject
+    public CompressionWriterInterceptor(@Context HttpHeaders httpHeaders, Properties properties) {
+        this.httpHeaders = httpHeaders;
+
+        this.enabled = Boolean.parseBoolean(properties.getProperty(GlobalConfig.PROPERTY_COMPRESSION_ENABLED, "false"));
+        this.deflate = Boolean.parseBoolean(properties.getProperty(GlobalConfig.PROPERTY_COMPRESSION_DEFLATE, "false"));
+        this.minSize = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_COMPRESSION_MIN_SIZE, String.valueOf(DEFAULT_MIN_SIZE)));
+        this.level = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_COMPRESSION_LEVEL, String.valueOf(DEFAULT_LEVEL)));
+
+        int poolSize = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_COMPRESSION_POOL_SIZE, String.valueOf(DEFAULT_POOL_SIZE)));
+        this.gzipDeflaters = new ArrayBlockingQueue<>(poolSize);
+        this.zlibDeflaters = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+
+        String encoding = enabled && !headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                ? negotiate(httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING), deflate)
+                : null;
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+
+        OutputStream entityStream = context.getOutputStream();
+        CompressingOutputStream compressing = new CompressingOutputStream(entityStream, headers, encoding);
+        context.setOutputStream(compressing);
+        try {
+            context.proceed();
+            compressing.close();
+        } finally {
+            compressing.release();
+            context.setOutputStream(entityStream);
+        }
+    }
+
+    /**
+     * @return the preferred content coding acceptable by client, or null if none
+     */
+    static String negotiate(String acceptEncoding, boolean deflate) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+
+        float gzipQ = -1.f, deflateQ = -1.f, anyQ = -1.f;
+        int length = acceptEncoding.length();
+        for (int start = 0; start < length; ) {
+            int end = acceptEncoding.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            int paramsIndex = acceptEncoding.indexOf(';', start);
+            int nameEnd = ((paramsIndex < 0) || (paramsIndex > end)) ? end : paramsIndex;
+            String name = acceptEncoding.substring(start, nameEnd).trim();
+            float q = (nameEnd == end) ? 1.f : quality(acceptEncoding.substring(nameEnd + 1, end));
+
+            if (ENCODING_GZIP.equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+                gzipQ = q;
+            } else if (ENCODING_DEFLATE.equalsIgnoreCase(name)) {
+                deflateQ = q;
+            } else if ("*".equals(name)) {
+                anyQ = q;
+            }
+
+            start = end + 1;
+        }
+
+        gzipQ = (gzipQ < 0.f) ? anyQ : gzipQ;
+        deflateQ = !deflate ? 0.f : ((deflateQ < 0.f) ? anyQ : deflateQ);
+
+        if ((gzipQ > 0.f) && (gzipQ >= deflateQ)) {
+            return ENCODING_GZIP;
+        }
+        return (deflateQ > 0.f) ? ENCODING_DEFLATE : null;
+    }
+
+    private static float quality(String params) {
+        for (String param : params.split(";")) {
+            param = param.trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Float.parseFloat(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0.f;
+                }
+            }
+        }
+
+        return 1.f;
+    }
+
+    private Deflater borrow(boolean gzip) {
+        Deflater deflater = (gzip ? gzipDeflaters : zlibDeflaters).poll();
+        return (deflater != null) ? deflater : new Deflater(level, gzip);
+    }
+
+    private void giveBack(Deflater deflater, boolean gzip) {
+        deflater.reset();
+        if (!(gzip ? gzipDeflaters : zlibDeflaters).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Holds back the first bytes of entity until the threshold is crossed, and only then commits to compression.
+     * Flushes before that are ignored, as JSON writers flush at the end of even the smallest entity.
+     */
+    private class CompressingOutputStream extends OutputStream {
+        private final OutputStream entityStream;
+        private final MultivaluedMap<String, Object> headers;
+        private final boolean gzip;
+
+        private byte[] buffer = new byte[minSize];
+        private int count;
+        private final byte[] single = new byte[1];
+
+        private Deflater deflater;
+        private DeflaterOutputStream deflaterStream;
+        private CRC32 crc;
+        private boolean closed;
+
+        private CompressingOutputStream(OutputStream entityStream, MultivaluedMap<String, Object> headers, String encoding) {
+            this.entityStream = entityStream;
+            this.headers = headers;
+            this.gzip = ENCODING_GZIP.equals(encoding);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (deflaterStream == null) {
+                if (count < buffer.length) {
+                    buffer[count++] = (byte) b;
+                    return;
+                }
+
+                startCompression();
+            }
+
+            if (crc != null) {
+                crc.update(b);
+            }
+            // DeflaterOutputStream.write(int) would allocate a new array for every byte
+            single[0] = (byte) b;
+            deflaterStream.write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (deflaterStream == null) {
+                if (count + len <= buffer.length) {
+                    System.arraycopy(b, off, buffer, count, len);
+                    count += len;
+                    return;
+                }
+
+                startCompression();
+            }
+
+            if (crc != null) {
+                crc.update(b, off, len);
+            }
+            deflaterStream.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (deflaterStream != null) {
+                deflaterStream.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            if (deflaterStream == null) {
+                headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                entityStream.write(buffer, 0, count);
+            } else {
+                deflaterStream.finish();
+                if (crc != null) {
+                    writeInt((int) crc.getValue());
+                    writeInt((int) deflater.getBytesRead());
+                }
+            }
+            entityStream.flush();
+        }
+
+        private void startCompression() throws IOException {
+            headers.putSingle(HttpHeaders.CONTENT_ENCODING, gzip ? ENCODING_GZIP : ENCODING_DEFLATE);
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+
+            deflater = borrow(gzip);
+            deflaterStream = new DeflaterOutputStream(entityStream, deflater, BUFFER_SIZE, true);
+            if (gzip) {
+                crc = new CRC32();
+                entityStream.write(GZIP_HEADER);
+            }
+
+            byte[] buffered = buffer;
+            buffer = null;
+            write(buffered, 0, count);
+        }
+
+        private void writeInt(int i) throws IOException {
+            entityStream.write(i & 0xff);
+            entityStream.write((i >> 8) & 0xff);
+            entityStream.write((i >> 16) & 0xff);
+            entityStream.write((i >> 24) & 0xff);
+        }
+
+        private void release() {
+            if (deflater != null) {
+                giveBack(deflater, gzip);
+                deflater = null;
+            }
+        }
+    }
+}
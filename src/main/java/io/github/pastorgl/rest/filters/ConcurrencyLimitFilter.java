@@ -0,0 +1,115 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.container.*;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.Provider;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds requests with 503 before resource matching once the {@link AdaptiveConcurrencyLimit adaptive limit}
+ * of requests in flight is reached. A request leaves flight when its response filters run, so the time to
+ * write an entity is not part of the latency the limit is adapted to. If they never run, e.g. because a filter
+ * or the container failed, the request leaves flight once Jersey finishes it, without a latency sample.
+ * <p>
+ * Roles are unknown before authorization, so a share of capacity reserved for admins is enforced later, by
+ * {@link ConcurrencyReserveFilter}.
+ */
+@Provider
+@PreMatching
+@Priority(MetricsFilter.PRIORITY + 20)
+public class ConcurrencyLimitFilter implements ContainerRequestFilter, ContainerResponseFilter, ApplicationEventListener, RequestEventListener {
+    static final String ADMISSION_PROPERTY = ConcurrencyLimitFilter.class.getName() + ".admission";
+
+    public static final double DEFAULT_ADMIN_RESERVE = 0.D;
+
+    private final boolean enabled;
+    private final AdaptiveConcurrencyLimit limit;
+    private final double adminReserve;
+
+    @Inject
+    public ConcurrencyLimitFilter(Properties properties) {
+        this.enabled = Boolean.parseBoolean(properties.getProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_ENABLED, "false"));
+        this.limit = enabled ? new AdaptiveConcurrencyLimit(properties) : null;
+        this.adminReserve = Double.parseDouble(properties.getProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_ADMIN_RESERVE, String.valueOf(DEFAULT_ADMIN_RESERVE)));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!enabled) {
+            return;
+        }
+
+        if (limit.tryAcquire()) {
+            requestContext.setProperty(ADMISSION_PROPERTY, new Admission(System.nanoTime(), limit, adminReserve));
+        } else {
+            requestContext.abortWith(ErrorResponses.of(Status.SERVICE_UNAVAILABLE.getStatusCode(), null));
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object admission = requestContext.getProperty(ADMISSION_PROPERTY);
+        if (admission instanceof Admission) {
+            requestContext.removeProperty(ADMISSION_PROPERTY);
+            ((Admission) admission).release(true);
+        }
+    }
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        // stateless, so one listener serves all requests
+        return enabled ? this : null;
+    }
+
+    @Override
+    public void onEvent(RequestEvent event) {
+        if (event.getType() != RequestEvent.Type.FINISHED) {
+            return;
+        }
+
+        Object admission = event.getContainerRequest().getProperty(ADMISSION_PROPERTY);
+        if (admission instanceof Admission) {
+            ((Admission) admission).release(false);
+        }
+    }
+
+    public AdaptiveConcurrencyLimit getLimit() {
+        return limit;
+    }
+
+    static class Admission {
+        private final long start;
+        final AdaptiveConcurrencyLimit limit;
+        final double adminReserve;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Admission(long start, AdaptiveConcurrencyLimit limit, double adminReserve) {
+            this.start = start;
+            this.limit = limit;
+            this.adminReserve = adminReserve;
+        }
+
+        void release(boolean sample) {
+            if (released.compareAndSet(false, true)) {
+                if (sample) {
+                    limit.release(System.nanoTime() - start);
+                } else {
+                    limit.release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.entity.AuthorizedUser;
+import io.github.pastorgl.rest.entity.Role;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.ext.Provider;
+import java.security.Principal;
+
+/**
+ * Second stage of {@link ConcurrencyLimitFilter}, once the user is known: keeps the admin reserve share of the
+ * concurrency limit free of other requests, which are shed with 503.
+ */
+@Provider
+@Priority(Priorities.AUTHORIZATION + 50)
+public class ConcurrencyReserveFilter implements ContainerRequestFilter {
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        Object property = requestContext.getProperty(ConcurrencyLimitFilter.ADMISSION_PROPERTY);
+        if (!(property instanceof ConcurrencyLimitFilter.Admission)) {
+            return;
+        }
+
+        ConcurrencyLimitFilter.Admission admission = (ConcurrencyLimitFilter.Admission) property;
+        if (admission.adminReserve <= 0.D) {
+            return;
+        }
+
+        SecurityContext securityContext = requestContext.getSecurityContext();
+        Principal principal = (securityContext == null) ? null : securityContext.getUserPrincipal();
+        if ((principal instanceof AuthorizedUser) && ((AuthorizedUser) principal).hasRole(Role.ADMIN)) {
+            return;
+        }
+
+        AdaptiveConcurrencyLimit limit = admission.limit;
+        if (limit.getInFlight() > limit.getLimit() * (1.D - admission.adminReserve)) {
+            requestContext.removeProperty(ConcurrencyLimitFilter.ADMISSION_PROPERTY);
+            admission.release(false);
+            requestContext.abortWith(ErrorResponses.of(Status.SERVICE_UNAVAILABLE.getStatusCode(), null));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.init.GlobalConfig;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.stream.BaseStream;
+import java.util.zip.CRC32;
+
+import static javax.ws.rs.HttpMethod.GET;
+
+/**
+ * Conditional GET support. A resource supplied ETag is checked against If-None-Match before the entity is
+ * serialized at all. Otherwise the serialized entity, up to the size limit, is held back and tagged with a
+ * weak ETag of its CRC32 and length, and replaced by 304 Not Modified if the client already has it. Off unless
+ * enabled in properties, as holding entities back costs memory and latency.
+ * <p>
+ * The status can still be changed from the writer interceptor because Jersey only commits it together with
+ * headers, on the first byte written to the entity stream.
+ */
+@Provider
+@Priority(Priorities.USER + 200)
+public class ETagFilter implements ContainerResponseFilter, WriterInterceptor {
+    public static final int DEFAULT_MAX_SIZE = 1024 * 1024;
+
+    private static final String PENDING_PROPERTY = ETagFilter.class.getName() + ".pending";
+
+    private final boolean enabled;
+    private final int maxSize;
+
+    public ETagFilter() {
+        this(new Properties());
+    }
+
+    @Inject
+    public ETagFilter(Properties properties) {
+        this.enabled = Boolean.parseBoolean(properties.getProperty(GlobalConfig.PROPERTY_ETAG_ENABLED, "false"));
+        this.maxSize = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_ETAG_MAX_SIZE, String.valueOf(DEFAULT_MAX_SIZE)));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!enabled || !GET.equals(requestContext.getMethod()) || (responseContext.getStatus() != Status.OK.getStatusCode())
+                || !responseContext.hasEntity()) {
+            return;
+        }
+
+        String ifNoneMatch = requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH);
+
+        EntityTag entityTag = responseContext.getEntityTag();
+        if (entityTag != null) {
+            if (matches(ifNoneMatch, entityTag.getValue())) {
+                responseContext.setStatus(Status.NOT_MODIFIED.getStatusCode());
+                responseContext.setEntity(null);
+                responseContext.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+            }
+            return;
+        }
+
+        Object entity = responseContext.getEntity();
+        if ((entity instanceof StreamingOutput) || (entity instanceof Iterator) || (entity instanceof BaseStream)) {
+            // streamed on purpose, so not to be held back
+            return;
+        }
+
+        requestContext.setProperty(PENDING_PROPERTY, new Pending(responseContext, ifNoneMatch));
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        Object pending = context.getProperty(PENDING_PROPERTY);
+        if (!(pending instanceof Pending)) {
+            context.proceed();
+            return;
+        }
+        context.removeProperty(PENDING_PROPERTY);
+
+        OutputStream entityStream = context.getOutputStream();
+        TaggingOutputStream tagging = new TaggingOutputStream(entityStream);
+        context.setOutputStream(tagging);
+        try {
+            context.proceed();
+        } finally {
+            context.setOutputStream(entityStream);
+        }
+
+        if (tagging.passThrough) {
+            return;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(tagging.buffer, 0, tagging.count);
+        String tag = Long.toHexString(crc.getValue()) + '-' + Integer.toHexString(tagging.count);
+        context.getHeaders().putSingle(HttpHeaders.ETAG, new EntityTag(tag, true));
+
+        Pending conditional = (Pending) pending;
+        if (matches(conditional.ifNoneMatch, tag)) {
+            conditional.responseContext.setStatus(Status.NOT_MODIFIED.getStatusCode());
+            context.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        } else {
+            entityStream.write(tagging.buffer, 0, tagging.count);
+        }
+    }
+
+    /**
+     * Weak comparison of If-None-Match list members with an opaque tag
+     */
+    static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        int length = ifNoneMatch.length();
+        for (int start = 0; start < length; ) {
+            int end = ifNoneMatch.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            while ((start < end) && (ifNoneMatch.charAt(start) == ' ')) {
+                start++;
+            }
+            if (ifNoneMatch.startsWith("W/", start)) {
+                start += 2;
+            }
+            int last = end;
+            while ((last > start) && (ifNoneMatch.charAt(last - 1) == ' ')) {
+                last--;
+            }
+
+            if ((last - start == 1) && (ifNoneMatch.charAt(start) == '*')) {
+                return true;
+            }
+            if ((last - start == tag.length() + 2) && (ifNoneMatch.charAt(start) == '"')
+                    && ifNoneMatch.startsWith(tag, start + 1)) {
+                return true;
+            }
+
+            start = end + 1;
+        }
+
+        return false;
+    }
+
+    private static class Pending {
+        private final ContainerResponseContext responseContext;
+        private final String ifNoneMatch;
+
+        private Pending(ContainerResponseContext responseContext, String ifNoneMatch) {
+            this.responseContext = responseContext;
+            this.ifNoneMatch = ifNoneMatch;
+        }
+    }
+
+    /**
+     * Holds back the entity until it's complete, or goes pass-through once it outgrows the size limit.
+     * Flushes and closes from writers are held back too.
+     */
+    private class TaggingOutputStream extends OutputStream {
+        private final OutputStream entityStream;
+
+        private byte[] buffer = new byte[1024];
+        private int count;
+        private boolean passThrough;
+
+        private TaggingOutputStream(OutputStream entityStream) {
+            this.entityStream = entityStream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (hold(1)) {
+                buffer[count++] = (byte) b;
+                return;
+            }
+
+            entityStream.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (hold(len)) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+                return;
+            }
+
+            entityStream.write(b, off, len);
+        }
+
+        /**
+         * @return true if there's room in the buffer for len more bytes, or false if gone pass-through
+         */
+        private boolean hold(int len) throws IOException {
+            if (passThrough) {
+                return false;
+            }
+
+            if (count + len > maxSize) {
+                passThrough = true;
+                entityStream.write(buffer, 0, count);
+                buffer = null;
+                return false;
+            }
+
+            if (count + len > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(maxSize, Math.max(count + len, buffer.length * 2)));
+            }
+            return true;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (passThrough) {
+                entityStream.flush();
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exception logging that survives error storms. Exceptions are told apart by type and throw site. Each
+ * distinct one is logged with full stack trace once per window, and further occurrences are only counted
+ * and reported once the window is over.
+ * <p>
+ * Log records are written by a single background thread, so request threads never wait for log I/O. If it
+ * falls behind by more than the queue size, records are dropped and counted instead.
+ */
+public class ErrorLogger {
+    public static final long DEFAULT_WINDOW = 60L;
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    private static final int MAX_SITES = 1000;
+
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "error-logger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Logger logger;
+    private final long window;
+    private final int queueSize;
+
+    private final ConcurrentHashMap<String, Site> sites = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    public ErrorLogger(Class<?> owner, Properties properties) {
+        this.logger = LoggerFactory.getLogger(owner);
+        long windowSeconds = Long.parseLong(properties.getProperty(GlobalConfig.PROPERTY_ERROR_LOG_WINDOW, String.valueOf(DEFAULT_WINDOW)));
+        if (windowSeconds <= 0L) {
+            throw new IllegalArgumentException("Property '" + GlobalConfig.PROPERTY_ERROR_LOG_WINDOW + "' must be a positive number of seconds, got " + windowSeconds);
+        }
+        this.window = TimeUnit.SECONDS.toMillis(windowSeconds);
+        this.queueSize = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_ERROR_LOG_QUEUE_SIZE, String.valueOf(DEFAULT_QUEUE_SIZE)));
+
+        Report report = new Report(this);
+        report.future = WRITER.scheduleAtFixedRate(report, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    public void error(String message, Throwable throwable) {
+        log(true, message, throwable);
+    }
+
+    public void warn(String message, Throwable throwable) {
+        log(false, message, throwable);
+    }
+
+    private void log(boolean error, String message, Throwable throwable) {
+        String key = siteOf(throwable);
+        long now = System.currentTimeMillis();
+
+        Site site = sites.get(key);
+        if (site == null) {
+            if (sites.size() >= MAX_SITES) {
+                // too many distinct sites to track, so at least the queue limit applies
+                enqueue(error, message, throwable);
+                return;
+            }
+
+            Site newSite = new Site(error, now);
+            site = sites.putIfAbsent(key, newSite);
+            if (site == null) {
+                enqueue(error, message, throwable);
+                return;
+            }
+        }
+
+        long windowStart = site.windowStart.get();
+        if ((now - windowStart >= window) && site.windowStart.compareAndSet(windowStart, now)) {
+            enqueue(error, message, throwable);
+        } else {
+            site.suppressed.increment();
+        }
+    }
+
+    private void enqueue(boolean error, String message, Throwable throwable) {
+        if (queued.incrementAndGet() > queueSize) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+
+        try {
+            WRITER.execute(() -> {
+                queued.decrementAndGet();
+                if (error) {
+                    logger.error(message, throwable);
+                } else {
+                    logger.warn(message, throwable);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            dropped.increment();
+        }
+    }
+
+    private void report() {
+        long now = System.currentTimeMillis();
+
+        for (Iterator<ConcurrentHashMap.Entry<String, Site>> it = sites.entrySet().iterator(); it.hasNext(); ) {
+            ConcurrentHashMap.Entry<String, Site> entry = it.next();
+            Site site = entry.getValue();
+
+            long suppressed = site.suppressed.sumThenReset();
+            if (suppressed > 0L) {
+                if (site.error) {
+                    logger.error("{} repeated {} more times", entry.getKey(), suppressed);
+                } else {
+                    logger.warn("{} repeated {} more times", entry.getKey(), suppressed);
+                }
+            } else if (now - site.windowStart.get() >= 2 * window) {
+                // quiet for a whole window, so the next one will be logged in full anyway
+                it.remove();
+            }
+        }
+
+        long droppedRecords = dropped.sumThenReset();
+        if (droppedRecords > 0L) {
+            logger.warn("Dropped {} error log records", droppedRecords);
+        }
+    }
+
+    private static String siteOf(Throwable throwable) {
+        if (throwable == null) {
+            return "";
+        }
+
+        StackTraceElement[] stackTrace = throwable.getStackTrace();
+        return (stackTrace.length == 0) ? throwable.getClass().getName() : (throwable.getClass().getName() + " at " + stackTrace[0]);
+    }
+
+    private static class Site {
+        private final boolean error;
+        private final AtomicLong windowStart;
+        private final LongAdder suppressed = new LongAdder();
+
+        private Site(boolean error, long windowStart) {
+            this.error = error;
+            this.windowStart = new AtomicLong(windowStart);
+        }
+    }
+
+    /**
+     * Holds its logger weakly, and stops once it's gone
+     */
+    private static class Report implements Runnable {
+        private final WeakReference<ErrorLogger> errorLogger;
+        private volatile ScheduledFuture<?> future;
+
+        private Report(ErrorLogger errorLogger) {
+            this.errorLogger = new WeakReference<>(errorLogger);
+        }
+
+        @Override
+        public void run() {
+            ErrorLogger errorLogger = this.errorLogger.get();
+            if (errorLogger == null) {
+                if (future != null) {
+                    future.cancel(false);
+                }
+            } else {
+                errorLogger.report();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.ErrorMessage;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * Error responses with {@link ErrorMessage} bodies. Entities of common statuses with their default messages are
+ * created once, so each error only costs a fresh {@link Response} around a shared entity. Entities are left to
+ * the application's JSON provider to serialize, same as any other.
+ */
+public final class ErrorResponses {
+    public static final String INTERNAL_ERROR_MESSAGE = "Internal error";
+
+    private static final Status[] COMMON_STATUSES = {
+            Status.BAD_REQUEST, Status.UNAUTHORIZED, Status.FORBIDDEN, Status.NOT_FOUND, Status.METHOD_NOT_ALLOWED,
+            Status.NOT_ACCEPTABLE, Status.CONFLICT, Status.UNSUPPORTED_MEDIA_TYPE, Status.TOO_MANY_REQUESTS,
+            Status.INTERNAL_SERVER_ERROR, Status.SERVICE_UNAVAILABLE
+    };
+
+    private static final String[] DEFAULT_MESSAGES = new String[600];
+    private static final ErrorMessage[] DEFAULT_ENTITIES = new ErrorMessage[600];
+    private static final ErrorMessage INTERNAL_ERROR_ENTITY = new ErrorMessage(INTERNAL_ERROR_MESSAGE);
+
+    static {
+        for (Status status : COMMON_STATUSES) {
+            // the message WebApplicationException gets when constructed with status only
+            String message = "HTTP " + status.getStatusCode() + ' ' + status.getReasonPhrase();
+            DEFAULT_MESSAGES[status.getStatusCode()] = message;
+            DEFAULT_ENTITIES[status.getStatusCode()] = new ErrorMessage(message);
+        }
+    }
+
+    private ErrorResponses() {
+    }
+
+    /**
+     * @return message a {@link javax.ws.rs.WebApplicationException} of that status has by default
+     */
+    public static String defaultMessage(int status) {
+        String message = ((status >= 0) && (status < DEFAULT_MESSAGES.length)) ? DEFAULT_MESSAGES[status] : null;
+        if (message == null) {
+            Status statusType = Status.fromStatusCode(status);
+            message = "HTTP " + status + ' ' + ((statusType == null) ? "" : statusType.getReasonPhrase());
+        }
+
+        return message;
+    }
+
+    public static Response of(int status, String message) {
+        ErrorMessage entity = null;
+        if ((status >= 0) && (status < DEFAULT_MESSAGES.length) && (DEFAULT_ENTITIES[status] != null)
+                && ((message == null) || message.equals(DEFAULT_MESSAGES[status]))) {
+            entity = DEFAULT_ENTITIES[status];
+        }
+        if (entity == null) {
+            entity = new ErrorMessage((message == null) ? defaultMessage(status) : message);
+        }
+
+        return Response.status(status)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .entity(entity)
+                .build();
+    }
+
+    public static Response internalError() {
+        return Response.status(Status.INTERNAL_SERVER_ERROR)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .entity(INTERNAL_ERROR_ENTITY)
+                .build();
+    }
+}
@@ -0,0 +1,247 @@
+package io.github.pastorgl.rest.filters;
+
+import com.auth0.jwt.interfaces.ECDSAKeyProvider;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Public keys of a JWKS document, indexed by key ID. The document is fetched from a http(s) or file URL,
+ * by default from <code>.well-known/jwks.json</code> under the auth check endpoint.
+ * <p>
+ * After the first load, keys are only ever refreshed in background, on schedule and when a token refers to
+ * an unknown key ID, so request threads never wait for a fetch.
+ */
+public class JwksKeySet implements AutoCloseable {
+    public static final String JWKS_PATH = "/.well-known/jwks.json";
+    public static final long DEFAULT_REFRESH_INTERVAL = 900L;
+    public static final long DEFAULT_MIN_REFRESH_INTERVAL = 30L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JwksKeySet.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final URL jwksUrl;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final long minRefreshInterval;
+
+    private final ScheduledExecutorService refresher;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile Map<String, PublicKey> keys;
+    private volatile long lastRefresh;
+
+    public JwksKeySet(Properties properties) {
+        String url = properties.getProperty(GlobalConfig.PROPERTY_AUTH_JWT_JWKS_URL);
+        if (StringUtils.isBlank(url)) {
+            String authCheckEndpoint = properties.getProperty(GlobalConfig.PROPERTY_AUTH_CHECK_ENDPOINT);
+            if (StringUtils.isBlank(authCheckEndpoint)) {
+                throw new IllegalArgumentException("Neither JWKS URL nor auth check endpoint is set");
+            }
+
+            url = authCheckEndpoint + JWKS_PATH;
+        }
+
+        try {
+            this.jwksUrl = new URL(url);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JWKS URL '" + url + "'", e);
+        }
+
+        this.connectTimeout = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_AUTH_CLIENT_CONNECT_TIMEOUT, String.valueOf(AuthCheckClient.DEFAULT_CONNECT_TIMEOUT)));
+        this.readTimeout = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_AUTH_CLIENT_READ_TIMEOUT, String.valueOf(AuthCheckClient.DEFAULT_READ_TIMEOUT)));
+        this.minRefreshInterval = TimeUnit.SECONDS.toMillis(Long.parseLong(properties.getProperty(GlobalConfig.PROPERTY_AUTH_JWT_JWKS_MIN_REFRESH, String.valueOf(DEFAULT_MIN_REFRESH_INTERVAL))));
+        long refreshInterval = Long.parseLong(properties.getProperty(GlobalConfig.PROPERTY_AUTH_JWT_JWKS_REFRESH, String.valueOf(DEFAULT_REFRESH_INTERVAL)));
+
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jwks-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, refreshInterval, refreshInterval, TimeUnit.SECONDS);
+    }
+
+    public PublicKey getKey(String keyId) {
+        Map<String, PublicKey> keys = this.keys;
+        if (keys == null) {
+            keys = coldStart();
+        }
+
+        PublicKey key = (keyId == null)
+                ? ((keys.size() == 1) ? keys.values().iterator().next() : null)
+                : keys.get(keyId);
+
+        if ((key == null) && (System.currentTimeMillis() - lastRefresh >= minRefreshInterval)
+                && refreshing.compareAndSet(false, true)) {
+            // key may have been rotated since the last fetch
+            refresher.execute(() -> {
+                try {
+                    refresh();
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+
+        return key;
+    }
+
+    public RSAKeyProvider rsaKeyProvider() {
+        return new RSAKeyProvider() {
+            @Override
+            public RSAPublicKey getPublicKeyById(String keyId) {
+                PublicKey key = getKey(keyId);
+                return (key instanceof RSAPublicKey) ? (RSAPublicKey) key : null;
+            }
+
+            @Override
+            public RSAPrivateKey getPrivateKey() {
+                return null;
+            }
+
+            @Override
+            public String getPrivateKeyId() {
+                return null;
+            }
+        };
+    }
+
+    public ECDSAKeyProvider ecKeyProvider() {
+        return new ECDSAKeyProvider() {
+            @Override
+            public ECPublicKey getPublicKeyById(String keyId) {
+                PublicKey key = getKey(keyId);
+                return (key instanceof ECPublicKey) ? (ECPublicKey) key : null;
+            }
+
+            @Override
+            public ECPrivateKey getPrivateKey() {
+                return null;
+            }
+
+            @Override
+            public String getPrivateKeyId() {
+                return null;
+            }
+        };
+    }
+
+    private synchronized Map<String, PublicKey> coldStart() {
+        if ((keys == null) && (System.currentTimeMillis() - lastRefresh >= minRefreshInterval)) {
+            refresh();
+        }
+
+        return (keys == null) ? Collections.emptyMap() : keys;
+    }
+
+    private void refresh() {
+        lastRefresh = System.currentTimeMillis();
+
+        try {
+            URLConnection connection = jwksUrl.openConnection();
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout(readTimeout);
+
+            JsonNode jwks;
+            try (InputStream stream = connection.getInputStream()) {
+                jwks = MAPPER.readTree(stream);
+            }
+
+            Map<String, PublicKey> keys = new HashMap<>();
+            for (JsonNode jwk : jwks.path("keys")) {
+                if ("enc".equals(jwk.path("use").asText())) {
+                    continue;
+                }
+
+                try {
+                    PublicKey key = parseKey(jwk);
+                    if (key != null) {
+                        keys.put(jwk.path("kid").asText(null), key);
+                    }
+                } catch (GeneralSecurityException | IllegalArgumentException e) {
+                    LOGGER.warn("Skipping invalid JWK '" + jwk.path("kid").asText() + "' from " + jwksUrl, e);
+                }
+            }
+
+            this.keys = Collections.unmodifiableMap(keys);
+        } catch (IOException | RuntimeException e) {
+            // a scheduled task that throws is never run again, so nothing may escape
+            LOGGER.error("Unable to fetch JWKS from " + jwksUrl, e);
+        }
+    }
+
+    private static PublicKey parseKey(JsonNode jwk) throws GeneralSecurityException {
+        switch (jwk.path("kty").asText()) {
+            case "RSA": {
+                return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                        unsigned(jwk, "n"), unsigned(jwk, "e")));
+            }
+            case "EC": {
+                String curve;
+                switch (jwk.path("crv").asText()) {
+                    case "P-256":
+                        curve = "secp256r1";
+                        break;
+                    case "P-384":
+                        curve = "secp384r1";
+                        break;
+                    case "P-521":
+                        curve = "secp521r1";
+                        break;
+                    default:
+                        return null;
+                }
+
+                AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+                parameters.init(new ECGenParameterSpec(curve));
+
+                return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(
+                        new ECPoint(unsigned(jwk, "x"), unsigned(jwk, "y")),
+                        parameters.getParameterSpec(ECParameterSpec.class)));
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static BigInteger unsigned(JsonNode jwk, String field) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path(field).asText()));
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+}
@@ -0,0 +1,216 @@
+package io.github.pastorgl.rest.filters;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.Claim;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.Verification;
+import io.github.pastorgl.rest.entity.AuthorizedUser;
+import io.github.pastorgl.rest.entity.Role;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Properties;
+
+public class JwtVerifier implements AutoCloseable {
+    public static final String DEFAULT_ALGORITHM = "HS256";
+    public static final String DEFAULT_CLAIM_EMAIL = "email";
+    public static final String DEFAULT_CLAIM_ROLE = "role";
+    public static final String DEFAULT_CLAIM_NAME = "name";
+
+    private final JWTVerifier verifier;
+    private final JwksKeySet keySet;
+    private final String emailClaim;
+    private final String roleClaim;
+    private final String nameClaim;
+
+    public JwtVerifier(Properties properties) {
+        this(properties, keySet(properties));
+    }
+
+    public JwtVerifier(Properties properties, Algorithm algorithm) {
+        this(properties, algorithm, null);
+    }
+
+    private JwtVerifier(Properties properties, JwksKeySet keySet) {
+        this(properties, algorithm(properties, keySet), keySet);
+    }
+
+    private JwtVerifier(Properties properties, Algorithm algorithm, JwksKeySet keySet) {
+        this.keySet = keySet;
+
+        Verification verification = JWT.require(algorithm)
+                .acceptLeeway(Long.parseLong(properties.getProperty(GlobalConfig.PROPERTY_AUTH_JWT_LEEWAY, "0")));
+
+        String issuer = properties.getProperty(GlobalConfig.PROPERTY_AUTH_JWT_ISSUER);
+        if (StringUtils.isNotBlank(issuer)) {
+            verification.withIssuer(issuer);
+        }
+
+        String audience = properties.getProperty(GlobalConfig.PROPERTY_AUTH_JWT_AUDIENCE);
+        if (StringUtils.isNotBlank(audience)) {
+            verification.withAudience(StringUtils.split(audience, ", "));
+        }
+
+        this.verifier = verification.build();
+        this.emailClaim = properties.getProperty(GlobalConfig.PROPERTY_AUTH_JWT_CLAIM_EMAIL, DEFAULT_CLAIM_EMAIL);
+        this.roleClaim = properties.getProperty(GlobalConfig.PROPERTY_AUTH_JWT_CLAIM_ROLE, DEFAULT_CLAIM_ROLE);
+        this.nameClaim = properties.getProperty(GlobalConfig.PROPERTY_AUTH_JWT_CLAIM_NAME, DEFAULT_CLAIM_NAME);
+    }
+
+    public AuthorizedUser verify(String token) {
+        DecodedJWT jwt;
+        try {
+            jwt = verifier.verify(token);
+        } catch (JWTVerificationException e) {
+            return null;
+        }
+
+        String subject = jwt.getSubject();
+        if (subject == null) {
+            return null;
+        }
+
+        // role claim is either a single role name or an array of them, the first known being the primary one
+        Claim claim = jwt.getClaim(roleClaim);
+        Role role = Role.of(claim.asString());
+        List<Role> roles = null;
+        if (role == null) {
+            List<String> names = claim.asList(String.class);
+            if (names != null) {
+                roles = new ArrayList<>();
+                for (String name : names) {
+                    Role r = Role.of(name);
+                    if (r != null) {
+                        roles.add(r);
+                    }
+                }
+                role = roles.isEmpty() ? null : roles.get(0);
+            }
+        }
+
+        if (role == null) {
+            return null;
+        }
+
+        return new AuthorizedUser(subject, jwt.getClaim(emailClaim).asString(), role, jwt.getClaim(nameClaim).asString(), roles);
+    }
+
+    private static String algorithmName(Properties properties) {
+        return properties.getProperty(GlobalConfig.PROPERTY_AUTH_JWT_ALGORITHM, DEFAULT_ALGORITHM).toUpperCase();
+    }
+
+    /**
+     * Asymmetric keys are fetched from JWKS, unless a single public key is configured explicitly
+     */
+    private static JwksKeySet keySet(Properties properties) {
+        if (algorithmName(properties).startsWith("HS")
+                || StringUtils.isNotBlank(properties.getProperty(GlobalConfig.PROPERTY_AUTH_JWT_PUBLIC_KEY))) {
+            return null;
+        }
+
+        return new JwksKeySet(properties);
+    }
+
+    private static Algorithm algorithm(Properties properties, JwksKeySet keySet) {
+        String algorithm = algorithmName(properties);
+
+        switch (algorithm) {
+            case "HS256":
+                return Algorithm.HMAC256(secret(properties));
+            case "HS384":
+                return Algorithm.HMAC384(secret(properties));
+            case "HS512":
+                return Algorithm.HMAC512(secret(properties));
+            case "RS256":
+                return (keySet != null)
+                        ? Algorithm.RSA256(keySet.rsaKeyProvider())
+                        : Algorithm.RSA256((RSAPublicKey) publicKey(properties, "RSA"), null);
+            case "RS384":
+                return (keySet != null)
+                        ? Algorithm.RSA384(keySet.rsaKeyProvider())
+                        : Algorithm.RSA384((RSAPublicKey) publicKey(properties, "RSA"), null);
+            case "RS512":
+                return (keySet != null)
+                        ? Algorithm.RSA512(keySet.rsaKeyProvider())
+                        : Algorithm.RSA512((RSAPublicKey) publicKey(properties, "RSA"), null);
+            case "ES256":
+                return (keySet != null)
+                        ? Algorithm.ECDSA256(keySet.ecKeyProvider())
+                        : Algorithm.ECDSA256((ECPublicKey) publicKey(properties, "EC"), null);
+            case "ES384":
+                return (keySet != null)
+                        ? Algorithm.ECDSA384(keySet.ecKeyProvider())
+                        : Algorithm.ECDSA384((ECPublicKey) publicKey(properties, "EC"), null);
+            case "ES512":
+                return (keySet != null)
+                        ? Algorithm.ECDSA512(keySet.ecKeyProvider())
+                        : Algorithm.ECDSA512((ECPublicKey) publicKey(properties, "EC"), null);
+            default:
+                throw new IllegalArgumentException("Unsupported JWT algorithm '" + algorithm + "'");
+        }
+    }
+
+    private static String secret(Properties properties) {
+        String secret = properties.getProperty(GlobalConfig.PROPERTY_AUTH_JWT_SECRET);
+        if (StringUtils.isBlank(secret)) {
+            throw new IllegalArgumentException("JWT secret is not set");
+        }
+
+        return secret;
+    }
+
+    /**
+     * Public key is an X.509 SubjectPublicKeyInfo, either in PEM or bare Base64 form,
+     * set inline or as a path to the key file
+     */
+    private static PublicKey publicKey(Properties properties, String keyAlgorithm) {
+        String publicKey = properties.getProperty(GlobalConfig.PROPERTY_AUTH_JWT_PUBLIC_KEY);
+        if (StringUtils.isBlank(publicKey)) {
+            throw new IllegalArgumentException("JWT public key is not set");
+        }
+
+        try {
+            if (!publicKey.startsWith("-----")) {
+                try {
+                    Path keyPath = Paths.get(publicKey);
+                    if (Files.isRegularFile(keyPath)) {
+                        publicKey = new String(Files.readAllBytes(keyPath), StandardCharsets.US_ASCII);
+                    }
+                } catch (InvalidPathException ignored) {
+                }
+            }
+
+            String encoded = publicKey.replaceAll("-----[A-Z ]+-----", "");
+            byte[] der = Base64.getMimeDecoder().decode(encoded);
+
+            return KeyFactory.getInstance(keyAlgorithm).generatePublic(new X509EncodedKeySpec(der));
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid JWT public key", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (keySet != null) {
+            keySet.close();
+        }
+    }
+}
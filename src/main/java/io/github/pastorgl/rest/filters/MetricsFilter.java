@@ -0,0 +1,90 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.metrics.RequestMetrics;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+
+/**
+ * Records every request into {@link RequestMetrics#getDefault()}. Timing starts before resource matching and
+ * stops after the entity is written, so it covers the whole filter and interceptor chain.
+ */
+@Provider
+@PreMatching
+@Priority(MetricsFilter.PRIORITY)
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+    // before any other filter, and the outermost writer interceptor
+    public static final int PRIORITY = 100;
+
+    private static final String TIMING_PROPERTY = MetricsFilter.class.getName() + ".timing";
+
+    private ResourceInfo resourceInfo;
+    private final RequestMetrics metrics;
+
+    @Inject
+    public MetricsFilter(@Context ResourceInfo resourceInfo) {
+        this(resourceInfo, RequestMetrics.getDefault());
+    }
+
+    public MetricsFilter(ResourceInfo resourceInfo, RequestMetrics metrics) {
+        this.resourceInfo = resourceInfo;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        requestContext.setProperty(TIMING_PROPERTY, new Timing(System.nanoTime()));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object timing = requestContext.getProperty(TIMING_PROPERTY);
+        if (!(timing instanceof Timing)) {
+            return;
+        }
+
+        Timing pending = (Timing) timing;
+        pending.endpoint = metrics.endpoint(resourceInfo.getResourceMethod());
+        if (responseContext.hasEntity()) {
+            // writer interceptors may still change the status
+            pending.responseContext = responseContext;
+        } else {
+            requestContext.removeProperty(TIMING_PROPERTY);
+            pending.endpoint.record(responseContext.getStatus(), System.nanoTime() - pending.start);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        try {
+            context.proceed();
+        } finally {
+            Object timing = context.getProperty(TIMING_PROPERTY);
+            if (timing instanceof Timing) {
+                context.removeProperty(TIMING_PROPERTY);
+
+                Timing pending = (Timing) timing;
+                if (pending.responseContext != null) {
+                    pending.endpoint.record(pending.responseContext.getStatus(), System.nanoTime() - pending.start);
+                }
+            }
+        }
+    }
+
+    private static class Timing {
+        private final long start;
+        private RequestMetrics.EndpointMetrics endpoint;
+        private ContainerResponseContext responseContext;
+
+        private Timing(long start) {
+            this.start = start;
+        }
+    }
+}
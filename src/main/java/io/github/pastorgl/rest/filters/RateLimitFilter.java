@@ -0,0 +1,204 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.entity.AuthorizedUser;
+import io.github.pastorgl.rest.entity.Role;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.ext.Provider;
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per principal rate limiting, after authorization. Authorized users are limited by their ID with the rate of
+ * their role, <code>rate.limit.user</code>, <code>rate.limit.admin</code> and so on, in requests per second.
+ * Everyone else is limited by client address with <code>rate.limit.anonymous</code>. Client address is the remote
+ * address of the servlet request, unless it is one of <code>rate.limit.trusted.proxies</code>. Then it's the nearest
+ * untrusted address from X-Forwarded-For, or X-Real-IP. Outside of a servlet container, all anonymous clients
+ * share a single bucket. Unset rates mean no limit. Bursts of up to <code>rate.limit.burst</code> seconds worth of
+ * requests are allowed.
+ * <p>
+ * Buckets are token buckets in their GCRA form, where the whole state is a single theoretical arrival time
+ * updated by CAS, and they are kept in a {@link ConcurrentHashMap}. A bucket that has been idle long enough
+ * is full again, so it's simply evicted.
+ */
+@Provider
+@Priority(Priorities.AUTHORIZATION + 100)
+public class RateLimitFilter implements ContainerRequestFilter {
+    public static final String ANONYMOUS = "anonymous";
+    public static final String HEADER_X_FORWARDED_FOR = "X-Forwarded-For";
+    public static final String HEADER_X_REAL_IP = "X-Real-IP";
+
+    public static final double DEFAULT_BURST = 1.D;
+    public static final long DEFAULT_IDLE_EVICTION = 60L;
+
+    private final long[] roleIntervals = new long[Role.values().length];
+    private final long anonymousInterval;
+    private final long burst;
+    private final boolean enabled;
+
+    private final HttpServletRequest servletRequest;
+    private final Set<String> trustedProxies;
+
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final long idleEviction;
+    private final AtomicLong nextEviction;
+
+    public RateLimitFilter(Properties properties) {
+        this(properties, null);
+    }
+
+    @Inject
+    public RateLimitFilter(Properties properties, @Context HttpServletRequest servletRequest) {
+        this.servletRequest = servletRequest;
+        this.trustedProxies = new HashSet<>(Arrays.asList(StringUtils.split(properties.getProperty(GlobalConfig.PROPERTY_RATE_LIMIT_TRUSTED_PROXIES, ""), ", ")));
+
+        boolean enabled = false;
+        for (Role role : Role.values()) {
+            roleIntervals[role.ordinal()] = interval(properties, role.name().toLowerCase(Locale.ROOT));
+            enabled |= roleIntervals[role.ordinal()] > 0L;
+        }
+        this.anonymousInterval = interval(properties, ANONYMOUS);
+        this.enabled = enabled || (anonymousInterval > 0L);
+
+        this.burst = (long) (TimeUnit.SECONDS.toNanos(1L) * Double.parseDouble(properties.getProperty(GlobalConfig.PROPERTY_RATE_LIMIT_BURST, String.valueOf(DEFAULT_BURST))));
+        this.idleEviction = TimeUnit.SECONDS.toNanos(Long.parseLong(properties.getProperty(GlobalConfig.PROPERTY_RATE_LIMIT_IDLE_EVICTION, String.valueOf(DEFAULT_IDLE_EVICTION))));
+        this.nextEviction = new AtomicLong(System.nanoTime() + idleEviction);
+    }
+
+    private static long interval(Properties properties, String name) {
+        String rate = properties.getProperty(GlobalConfig.PROPERTY_RATE_LIMIT + '.' + name);
+        if (StringUtils.isBlank(rate) || (Double.parseDouble(rate) <= 0.D)) {
+            return 0L;
+        }
+
+        return (long) (TimeUnit.SECONDS.toNanos(1L) / Double.parseDouble(rate));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!enabled) {
+            return;
+        }
+
+        String key;
+        long interval;
+        SecurityContext securityContext = requestContext.getSecurityContext();
+        Principal principal = (securityContext == null) ? null : securityContext.getUserPrincipal();
+        // users without ID, e.g. from incomplete JWT claims, can't have a bucket of their own
+        if ((principal instanceof AuthorizedUser) && (((AuthorizedUser) principal).getRole() != null)
+                && (((AuthorizedUser) principal).getId() != null)) {
+            AuthorizedUser user = (AuthorizedUser) principal;
+            key = user.getId();
+            interval = roleIntervals[user.getRole().ordinal()];
+        } else {
+            key = "ip:" + clientAddress(requestContext);
+            interval = anonymousInterval;
+        }
+        if (interval == 0L) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        evictIdle(now);
+
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            Bucket newBucket = new Bucket(now);
+            bucket = buckets.putIfAbsent(key, newBucket);
+            if (bucket == null) {
+                bucket = newBucket;
+            }
+        }
+
+        long wait = bucket.acquire(now, interval, Math.max(0L, burst - interval));
+        if (wait > 0L) {
+            long retryAfter = Math.max(1L, (wait + TimeUnit.SECONDS.toNanos(1L) - 1L) / TimeUnit.SECONDS.toNanos(1L));
+            Response tooManyRequests = ErrorResponses.of(Status.TOO_MANY_REQUESTS.getStatusCode(), null);
+            tooManyRequests.getHeaders().putSingle(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            requestContext.abortWith(tooManyRequests);
+        }
+    }
+
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    private String clientAddress(ContainerRequestContext requestContext) {
+        String remoteAddress = (servletRequest == null) ? null : servletRequest.getRemoteAddr();
+        if (StringUtils.isBlank(remoteAddress)) {
+            return ANONYMOUS;
+        }
+        if (!trustedProxies.contains(remoteAddress)) {
+            return remoteAddress;
+        }
+
+        // every proxy appends the address it got the request from, so only the part added by trusted ones is reliable
+        String forwardedFor = requestContext.getHeaderString(HEADER_X_FORWARDED_FOR);
+        if (!StringUtils.isBlank(forwardedFor)) {
+            String[] addresses = StringUtils.split(forwardedFor, ", ");
+            for (int i = addresses.length - 1; i >= 0; i--) {
+                if ((i == 0) || !trustedProxies.contains(addresses[i])) {
+                    return addresses[i];
+                }
+            }
+        }
+
+        String realIp = requestContext.getHeaderString(HEADER_X_REAL_IP);
+        return StringUtils.isBlank(realIp) ? remoteAddress : realIp.trim();
+    }
+
+    private void evictIdle(long now) {
+        long next = nextEviction.get();
+        if ((now - next < 0L) || !nextEviction.compareAndSet(next, now + idleEviction)) {
+            return;
+        }
+
+        for (Iterator<Bucket> it = buckets.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().arrival.get() >= idleEviction) {
+                it.remove();
+            }
+        }
+    }
+
+    private static class Bucket {
+        // theoretical arrival time of the next request if requests came exactly at the limit rate
+        private final AtomicLong arrival;
+
+        private Bucket(long now) {
+            this.arrival = new AtomicLong(now);
+        }
+
+        /**
+         * @return 0 if request is allowed, or nanoseconds to wait until it would be
+         */
+        private long acquire(long now, long interval, long tolerance) {
+            while (true) {
+                long current = arrival.get();
+                long tat = (current - now > 0L) ? current : now;
+
+                long wait = tat - tolerance - now;
+                if (wait > 0L) {
+                    return wait;
+                }
+                if (arrival.compareAndSet(current, tat + interval)) {
+                    return 0L;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.entity.Role;
+
+import javax.annotation.security.DenyAll;
+import javax.annotation.security.PermitAll;
+import javax.annotation.security.RolesAllowed;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Access rules of a single resource method, resolved once from its security annotations. Method level
+ * annotations override class level ones, as JSR-250 prescribes.
+ */
+public final class ResourceAuthorization {
+    public static final ResourceAuthorization UNRESTRICTED = new ResourceAuthorization(Mode.UNRESTRICTED, EnumSet.noneOf(Role.class));
+
+    public enum Mode {
+        UNRESTRICTED,
+        DENY_ALL,
+        PERMIT_ALL,
+        ROLES_ALLOWED
+    }
+
+    private final Mode mode;
+    private final EnumSet<Role> roles;
+    private final int roleMask;
+
+    private ResourceAuthorization(Mode mode, EnumSet<Role> roles) {
+        this.mode = mode;
+        this.roles = roles;
+
+        int roleMask = 0;
+        for (Role role : roles) {
+            roleMask |= Role.mask(role);
+        }
+        this.roleMask = roleMask;
+    }
+
+    public static ResourceAuthorization of(Class<?> resourceClass, Method method) {
+        ResourceAuthorization authorization = (method == null) ? null : of(method);
+
+        if ((authorization == null) && (resourceClass != null)) {
+            authorization = of(resourceClass);
+        }
+
+        return (authorization == null) ? UNRESTRICTED : authorization;
+    }
+
+    private static ResourceAuthorization of(AnnotatedElement element) {
+        if (element.isAnnotationPresent(DenyAll.class)) {
+            return new ResourceAuthorization(Mode.DENY_ALL, EnumSet.noneOf(Role.class));
+        }
+
+        if (element.isAnnotationPresent(RolesAllowed.class)) {
+            EnumSet<Role> roles = EnumSet.noneOf(Role.class);
+
+            RolesAllowed rolesAllowed = element.getAnnotation(RolesAllowed.class);
+            if (rolesAllowed != null) {
+                for (String name : rolesAllowed.value()) {
+                    Role role = Role.of(name);
+                    if (role != null) {
+                        roles.add(role);
+                    }
+                }
+            }
+
+            return new ResourceAuthorization(Mode.ROLES_ALLOWED, roles);
+        }
+
+        if (element.isAnnotationPresent(PermitAll.class)) {
+            return new ResourceAuthorization(Mode.PERMIT_ALL, EnumSet.noneOf(Role.class));
+        }
+
+        return null;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Set<Role> getRoles() {
+        return Collections.unmodifiableSet(roles);
+    }
+
+    public boolean requiresAuthentication() {
+        return (mode == Mode.PERMIT_ALL) || (mode == Mode.ROLES_ALLOWED);
+    }
+
+    public boolean allows(Role role) {
+        switch (mode) {
+            case DENY_ALL:
+                return false;
+            case ROLES_ALLOWED:
+                return roles.contains(role);
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @param roleMask {@link io.github.pastorgl.rest.entity.AuthorizedUser#roleMask() role mask} of the user
+     */
+    public boolean allows(int roleMask) {
+        switch (mode) {
+            case DENY_ALL:
+                return false;
+            case ROLES_ALLOWED:
+                return (this.roleMask & roleMask) != 0;
+            default:
+                return true;
+        }
+    }
+}
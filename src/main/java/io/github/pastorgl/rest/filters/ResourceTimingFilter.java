@@ -0,0 +1,32 @@
+package io.github.pastorgl.rest.filters;
+
+import javax.annotation.Priority;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Marks the resource method phase of requests timed by {@link ServerTimingFilter}. Being the last request
+ * filter and the first response filter, it brackets the resource method invocation.
+ */
+@Provider
+@Priority(Integer.MAX_VALUE)
+public class ResourceTimingFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        ServerTiming timing = ServerTiming.of(requestContext);
+        if (timing != null) {
+            timing.resourceStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        ServerTiming timing = ServerTiming.of(requestContext);
+        if ((timing != null) && (timing.resourceStart != 0L)) {
+            timing.resourceEnd = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.CachedResponse;
+import io.github.pastorgl.rest.cache.ExpiringCache;
+import io.github.pastorgl.rest.entity.AuthorizedUser;
+import io.github.pastorgl.rest.init.GlobalConfig;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.*;
+import javax.ws.rs.core.*;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
+
+import static javax.ws.rs.HttpMethod.GET;
+
+/**
+ * Server side cache of serialized responses of resource methods annotated with {@link CachedResponse}.
+ * The request filter runs after authorization and answers from cache, and the writer interceptor stores
+ * entities as they are serialized, before compression. Capacity is bounded by total size of entities.
+ * <p>
+ * Cached responses keep their status and the headers set by the resource method, and are keyed by URI,
+ * negotiated Accept, and either the user or the whole set of user roles. Responses that set cookies or are
+ * marked <code>Cache-Control: private</code> or <code>no-store</code> are never cached.
+ */
+@Provider
+@Priority(Priorities.USER + 300)
+public class ResponseCacheFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+    public static final long DEFAULT_CACHE_SIZE = 64L * 1024 * 1024;
+    public static final int DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+
+    private static final String PENDING_PROPERTY = ResponseCacheFilter.class.getName() + ".pending";
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final Policy NOT_CACHED = new Policy(0L, null);
+
+    private ResourceInfo resourceInfo;
+    private UriInfo uriInfo;
+
+    private final int maxEntrySize;
+    private final ExpiringCache<String, Entry> cache;
+    private final ConcurrentHashMap<Method, Policy> policies = new ConcurrentHashMap<>();
+
+    @Inject
+    public ResponseCacheFilter(Properties properties, @Context ResourceInfo resourceInfo, @Context UriInfo uriInfo) {
+        this.resourceInfo = resourceInfo;
+        this.uriInfo = uriInfo;
+
+        this.maxEntrySize = Integer.parseInt(properties.getProperty(GlobalConfig.PROPERTY_RESPONSE_CACHE_MAX_ENTRY_SIZE, String.valueOf(DEFAULT_MAX_ENTRY_SIZE)));
+        this.cache = new ExpiringCache<>(Long.parseLong(properties.getProperty(GlobalConfig.PROPERTY_RESPONSE_CACHE_SIZE, String.valueOf(DEFAULT_CACHE_SIZE))),
+                entry -> entry.body.length + ENTRY_OVERHEAD);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!GET.equals(requestContext.getMethod())) {
+            return;
+        }
+
+        Policy policy = policyOf(resourceInfo.getResourceMethod());
+        if (policy == NOT_CACHED) {
+            return;
+        }
+
+        String key = key(policy.scope, requestContext);
+        if (key == null) {
+            return;
+        }
+
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            requestContext.abortWith(entry.toResponse());
+        } else {
+            requestContext.setProperty(PENDING_PROPERTY, new Pending(key, policy.ttl));
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object pending = requestContext.getProperty(PENDING_PROPERTY);
+        if (!(pending instanceof Pending)) {
+            return;
+        }
+
+        Object entity = responseContext.getEntity();
+        int status = responseContext.getStatus();
+        if ((responseContext.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL)
+                || (status == Response.Status.PARTIAL_CONTENT.getStatusCode()) || (entity == null)
+                || (entity instanceof StreamingOutput) || (entity instanceof Iterator) || (entity instanceof BaseStream)
+                || isPrivate(responseContext.getHeaders())) {
+            requestContext.removeProperty(PENDING_PROPERTY);
+            return;
+        }
+
+        // response filters run in reverse priority order, so these are the headers of the resource method
+        // itself, before CORS, ETag and other per-request headers are added
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        for (Map.Entry<String, List<Object>> header : responseContext.getHeaders().entrySet()) {
+            if (!HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getKey()) && !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())) {
+                headers.put(header.getKey(), new ArrayList<>(header.getValue()));
+            }
+        }
+        ((Pending) pending).status = status;
+        ((Pending) pending).headers = headers;
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        Object pending = context.getProperty(PENDING_PROPERTY);
+        if (!(pending instanceof Pending)) {
+            context.proceed();
+            return;
+        }
+        context.removeProperty(PENDING_PROPERTY);
+
+        OutputStream entityStream = context.getOutputStream();
+        CopyingOutputStream copying = new CopyingOutputStream(entityStream);
+        context.setOutputStream(copying);
+        try {
+            context.proceed();
+        } finally {
+            context.setOutputStream(entityStream);
+        }
+
+        if (copying.buffer != null) {
+            Pending fill = (Pending) pending;
+            cache.put(fill.key, new Entry(fill.status, fill.headers, Arrays.copyOf(copying.buffer, copying.count), context.getMediaType()),
+                    System.currentTimeMillis() + fill.ttl);
+        }
+    }
+
+    public ExpiringCache<String, Entry> getCache() {
+        return cache;
+    }
+
+    /**
+     * Responses for this user only must not be replayed to anyone else, even with the same roles
+     */
+    private static boolean isPrivate(MultivaluedMap<String, Object> headers) {
+        if (headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return true;
+        }
+
+        List<Object> cacheControl = headers.get(HttpHeaders.CACHE_CONTROL);
+        if (cacheControl != null) {
+            for (Object value : cacheControl) {
+                for (String directive : String.valueOf(value).toLowerCase(Locale.ROOT).split(",")) {
+                    directive = directive.trim();
+                    if (directive.startsWith("private") || directive.equals("no-store")) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return cache key, or null if the response must not be cached
+     */
+    private String key(CachedResponse.Scope scope, ContainerRequestContext requestContext) {
+        URI requestUri = uriInfo.getRequestUri();
+        String query = requestUri.getRawQuery();
+
+        String owner = "";
+        SecurityContext securityContext = requestContext.getSecurityContext();
+        Principal principal = (securityContext == null) ? null : securityContext.getUserPrincipal();
+        if (principal instanceof AuthorizedUser) {
+            AuthorizedUser user = (AuthorizedUser) principal;
+            if (scope == CachedResponse.Scope.ROLE) {
+                owner = "roles:" + user.roleMask();
+            } else if (user.getId() != null) {
+                owner = "id:" + user.getId();
+            } else {
+                // a user without ID can't be told apart from others, so nothing is cached for them
+                return null;
+            }
+        }
+
+        StringBuilder key = new StringBuilder(128).append(requestUri.getRawPath());
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        // entities are stored before compression, so Accept-Encoding doesn't make a difference
+        String accept = requestContext.getHeaderString(HttpHeaders.ACCEPT);
+        return key.append(' ').append(owner)
+                .append(' ').append((accept == null) ? "" : accept)
+                .toString();
+    }
+
+    private Policy policyOf(Method method) {
+        if (method == null) {
+            return NOT_CACHED;
+        }
+
+        Policy policy = policies.get(method);
+        if (policy == null) {
+            CachedResponse cachedResponse = method.getAnnotation(CachedResponse.class);
+            policy = (cachedResponse == null) ? NOT_CACHED
+                    : new Policy(TimeUnit.SECONDS.toMillis(cachedResponse.ttl()), cachedResponse.scope());
+            policies.putIfAbsent(method, policy);
+        }
+
+        return policy;
+    }
+
+    public static class Entry {
+        private final int status;
+        private final MultivaluedMap<String, Object> headers;
+        private final byte[] body;
+        private final MediaType mediaType;
+
+        private Entry(int status, MultivaluedMap<String, Object> headers, byte[] body, MediaType mediaType) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.mediaType = mediaType;
+        }
+
+        public int size() {
+            return body.length;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        private Response toResponse() {
+            Response.ResponseBuilder response = Response.status(status).entity(body).type(mediaType);
+            for (Map.Entry<String, List<Object>> header : headers.entrySet()) {
+                for (Object value : header.getValue()) {
+                    response.header(header.getKey(), value);
+                }
+            }
+            return response.build();
+        }
+    }
+
+    private static class Pending {
+        private final String key;
+        private final long ttl;
+
+        private int status;
+        private MultivaluedMap<String, Object> headers;
+
+        private Pending(String key, long ttl) {
+            this.key = key;
+            this.ttl = ttl;
+        }
+    }
+
+    private static class Policy {
+        private final long ttl;
+        private final CachedResponse.Scope scope;
+
+        private Policy(long ttl, CachedResponse.Scope scope) {
+            this.ttl = ttl;
+            this.scope = scope;
+        }
+    }
+
+    /**
+     * Writes through, keeping a copy of everything written unless it outgrows the entry size limit
+     */
+    private class CopyingOutputStream extends OutputStream {
+        private final OutputStream entityStream;
+
+        private byte[] buffer = new byte[1024];
+        private int count;
+
+        private CopyingOutputStream(OutputStream entityStream) {
+            this.entityStream = entityStream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (reserve(1)) {
+                buffer[count++] = (byte) b;
+            }
+
+            entityStream.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (reserve(len)) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+            }
+
+            entityStream.write(b, off, len);
+        }
+
+        /**
+         * @return true if there's room for len more bytes, or false if the copy is given up
+         */
+        private boolean reserve(int len) {
+            if (buffer == null) {
+                return false;
+            }
+
+            if (count + len > maxEntrySize) {
+                buffer = null;
+                return false;
+            }
+
+            if (count + len > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(maxEntrySize, Math.max(count + len, buffer.length * 2)));
+            }
+            return true;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            entityStream.flush();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.pastorgl.rest.filters;
+
+import javax.ws.rs.container.ContainerRequestContext;
+
+/**
+ * Phase timestamps of a single sampled request, from {@link System#nanoTime()}, rendered as a Server-Timing
+ * header value. Only exists for requests that asked for it or were sampled, see {@link ServerTimingFilter}.
+ */
+public final class ServerTiming {
+    public static final String HEADER_SERVER_TIMING = "Server-Timing";
+
+    static final String PROPERTY = ServerTiming.class.getName();
+
+    public static final String AUTH_CACHE = "cache";
+    public static final String AUTH_REMOTE = "remote";
+    public static final String AUTH_JWT = "jwt";
+
+    final long start;
+    long authStart;
+    long authEnd;
+    String authSource;
+    long resourceStart;
+    long resourceEnd;
+    long serializationStart;
+
+    ServerTiming(long start) {
+        this.start = start;
+    }
+
+    /**
+     * @return timing of the request, or null if it isn't timed
+     */
+    public static ServerTiming of(ContainerRequestContext requestContext) {
+        Object timing = requestContext.getProperty(PROPERTY);
+        return (timing instanceof ServerTiming) ? (ServerTiming) timing : null;
+    }
+
+    public void authStarted() {
+        authStart = System.nanoTime();
+    }
+
+    public void authSource(String source) {
+        authSource = source;
+    }
+
+    public void authFinished() {
+        authEnd = System.nanoTime();
+    }
+
+    String headerValue(long end) {
+        StringBuilder value = new StringBuilder(128);
+
+        long prematchEnd = (authStart != 0L) ? authStart : resourceStart;
+        if (prematchEnd != 0L) {
+            phase(value, "prematch", null, prematchEnd - start);
+        }
+        if (authEnd != 0L) {
+            phase(value, "auth", authSource, authEnd - authStart);
+        }
+        if ((resourceStart != 0L) && (resourceEnd != 0L)) {
+            phase(value, "resource", null, resourceEnd - resourceStart);
+        }
+        if (serializationStart != 0L) {
+            phase(value, "serialization", null, end - serializationStart);
+        }
+        phase(value, "total", null, end - start);
+
+        return value.toString();
+    }
+
+    private static void phase(StringBuilder value, String name, String description, long nanos) {
+        if (value.length() > 0) {
+            value.append(", ");
+        }
+        value.append(name);
+        if (description != null) {
+            value.append(";desc=\"").append(description).append('"');
+        }
+
+        long micros = Math.max(0L, nanos / 1000L);
+        long fraction = micros % 1000L;
+        value.append(";dur=").append(micros / 1000L).append('.')
+                .append((fraction < 100L) ? ((fraction < 10L) ? "00" : "0") : "").append(fraction);
+    }
+}
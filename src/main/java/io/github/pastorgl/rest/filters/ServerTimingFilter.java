@@ -0,0 +1,128 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.init.GlobalConfig;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.*;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Adds a Server-Timing header with the phases of request processing: pre-matching filters and matching, auth
+ * check, resource method and serialization up to the first byte sent. Requests are timed if they have the
+ * {@link #HEADER_REQUEST_TIMING} header and that is allowed, or if they are sampled.
+ * <p>
+ * Serialization is timed by the outermost writer interceptor, which adds the header just before the first
+ * byte reaches the container.
+ */
+@Provider
+@PreMatching
+@Priority(MetricsFilter.PRIORITY + 10)
+public class ServerTimingFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+    public static final String HEADER_REQUEST_TIMING = "X-Server-Timing";
+
+    private final boolean requestHeaderAllowed;
+    private final double sampleRate;
+
+    public ServerTimingFilter() {
+        this(new Properties());
+    }
+
+    @Inject
+    public ServerTimingFilter(Properties properties) {
+        this.requestHeaderAllowed = Boolean.parseBoolean(properties.getProperty(GlobalConfig.PROPERTY_SERVER_TIMING_HEADER, "false"));
+        this.sampleRate = Double.parseDouble(properties.getProperty(GlobalConfig.PROPERTY_SERVER_TIMING_SAMPLE_RATE, "0"));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if ((requestHeaderAllowed && (requestContext.getHeaderString(HEADER_REQUEST_TIMING) != null))
+                || ((sampleRate > 0.D) && (ThreadLocalRandom.current().nextDouble() < sampleRate))) {
+            requestContext.setProperty(ServerTiming.PROPERTY, new ServerTiming(System.nanoTime()));
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        ServerTiming timing = ServerTiming.of(requestContext);
+        if ((timing != null) && !responseContext.hasEntity()) {
+            requestContext.removeProperty(ServerTiming.PROPERTY);
+            responseContext.getHeaders().putSingle(ServerTiming.HEADER_SERVER_TIMING, timing.headerValue(System.nanoTime()));
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        Object property = context.getProperty(ServerTiming.PROPERTY);
+        if (!(property instanceof ServerTiming)) {
+            context.proceed();
+            return;
+        }
+        context.removeProperty(ServerTiming.PROPERTY);
+
+        ServerTiming timing = (ServerTiming) property;
+        timing.serializationStart = System.nanoTime();
+
+        OutputStream entityStream = context.getOutputStream();
+        TimingOutputStream timingStream = new TimingOutputStream(entityStream, context, timing);
+        context.setOutputStream(timingStream);
+        try {
+            context.proceed();
+        } finally {
+            context.setOutputStream(entityStream);
+        }
+
+        // nothing written, so headers are still to be sent
+        timingStream.firstWrite();
+    }
+
+    private static class TimingOutputStream extends OutputStream {
+        private final OutputStream entityStream;
+        private WriterInterceptorContext context;
+        private ServerTiming timing;
+
+        private TimingOutputStream(OutputStream entityStream, WriterInterceptorContext context, ServerTiming timing) {
+            this.entityStream = entityStream;
+            this.context = context;
+            this.timing = timing;
+        }
+
+        private void firstWrite() {
+            if (timing != null) {
+                context.getHeaders().putSingle(ServerTiming.HEADER_SERVER_TIMING, timing.headerValue(System.nanoTime()));
+                timing = null;
+                context = null;
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            firstWrite();
+            entityStream.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            firstWrite();
+            entityStream.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            entityStream.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            firstWrite();
+            entityStream.close();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.pastorgl.rest.filters;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * {@link WebApplicationException} for expected failures, such as a missing entity or a denied request, which
+ * neither captures nor accepts a stack trace. The cause is fixed at construction, so preallocated instances
+ * returned by {@link #of(Status)} can be thrown over and over.
+ * <p>
+ * {@link WebApplicationException} doesn't allow to disable suppression, so shared instances still collect
+ * exceptions passed to {@link #addSuppressed(Throwable)}. Throw a new instance where that may happen, e.g.
+ * from a try-with-resources block.
+ * <p>
+ * {@link #getResponse()} builds a new {@link Response} on every call, so requests that throw the same instance
+ * never share one, even where no exception mapper replaces it.
+ */
+public class StatusException extends WebApplicationException {
+    private static final long serialVersionUID = 1L;
+
+    private static final StatusException[] PREALLOCATED = new StatusException[600];
+
+    static {
+        for (Status status : Status.values()) {
+            if (status.getFamily() == Status.Family.CLIENT_ERROR || status.getFamily() == Status.Family.SERVER_ERROR) {
+                PREALLOCATED[status.getStatusCode()] = new StatusException(status);
+            }
+        }
+    }
+
+    public StatusException(Status status) {
+        super(ErrorResponses.defaultMessage(status.getStatusCode()), status);
+    }
+
+    public StatusException(Status status, String message) {
+        super(message, status);
+    }
+
+    public static StatusException of(Status status) {
+        StatusException exception = PREALLOCATED[status.getStatusCode()];
+        return (exception != null) ? exception : new StatusException(status);
+    }
+
+    @Override
+    public Response getResponse() {
+        return Response.status(super.getResponse().getStatus()).build();
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+    @Override
+    public void setStackTrace(StackTraceElement[] stackTrace) {
+    }
+}
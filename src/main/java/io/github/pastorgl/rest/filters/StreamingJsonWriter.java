@@ -0,0 +1,116 @@
+package io.github.pastorgl.rest.filters;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.Providers;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.stream.BaseStream;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+
+/**
+ * Writes an {@link Iterator} or a {@link java.util.stream.Stream} returned by a resource element by element,
+ * as a JSON array or, for {@link #APPLICATION_NDJSON}, as newline delimited JSON. All elements go through a
+ * single Jackson generator, with the application's {@link ObjectMapper} if it provides one, so the whole
+ * collection is never held in memory.
+ */
+@Provider
+@Produces({APPLICATION_JSON, StreamingJsonWriter.APPLICATION_NDJSON})
+public class StreamingJsonWriter implements MessageBodyWriter<Object> {
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON_TYPE = MediaType.valueOf(APPLICATION_NDJSON);
+
+    private static final ObjectWriter DEFAULT_WRITER = elementWriter(new ObjectMapper());
+
+    private Providers providers;
+
+    public StreamingJsonWriter(@Context Providers providers) {
+        this.providers = providers;
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return Iterator.class.isAssignableFrom(type) || BaseStream.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1L;
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+        boolean ndjson = mediaType.isCompatible(APPLICATION_NDJSON_TYPE);
+
+        try {
+            Iterator<?> elements = (entity instanceof BaseStream) ? ((BaseStream<?, ?>) entity).iterator() : (Iterator<?>) entity;
+
+            ObjectWriter writer = elementWriter();
+            // the generator buffers output by itself, and the entity stream is not its to close
+            try (JsonGenerator generator = writer.getFactory().createGenerator(entityStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+
+                if (!ndjson) {
+                    generator.writeStartArray();
+                }
+
+                boolean first = true;
+                while (elements.hasNext()) {
+                    writer.writeValue(generator, elements.next());
+
+                    if (ndjson) {
+                        generator.writeRaw('\n');
+                    }
+
+                    if (first) {
+                        // first element goes out at once, the rest in buffer-sized chunks
+                        generator.flush();
+                        first = false;
+                    }
+                }
+
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+                generator.flush();
+            }
+        } finally {
+            if (entity instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) entity).close();
+                } catch (Exception ignore) {
+                }
+            }
+        }
+    }
+
+    private ObjectWriter elementWriter() {
+        ContextResolver<ObjectMapper> resolver = (providers == null) ? null : providers.getContextResolver(ObjectMapper.class, APPLICATION_JSON_TYPE);
+        ObjectMapper mapper = (resolver == null) ? null : resolver.getContext(Object.class);
+
+        return (mapper == null) ? DEFAULT_WRITER : elementWriter(mapper);
+    }
+
+    private static ObjectWriter elementWriter(ObjectMapper mapper) {
+        // flushing is up to the loop above, not to every element
+        return mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+}
@@ -1,20 +1,28 @@
 package io.github.pastorgl.rest.filters;
 
-import io.github.pastorgl.rest.ErrorMessage;
-
-import javax.ws.rs.core.MediaType;
+import javax.inject.Inject;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
+import java.util.Properties;
 
 @Provider
 public class UnexpectedExceptionMapper implements ExceptionMapper<Exception> {
+    private final ErrorLogger errorLogger;
+
+    public UnexpectedExceptionMapper() {
+        this(new Properties());
+    }
+
+    @Inject
+    public UnexpectedExceptionMapper(Properties properties) {
+        this.errorLogger = new ErrorLogger(UnexpectedExceptionMapper.class, properties);
+    }
 
     @Override
     public Response toResponse(Exception exception) {
-        return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                .type(MediaType.APPLICATION_JSON_TYPE)
-                .entity(new ErrorMessage("Internal error"))
-                .build();
+        errorLogger.error("Unexpected exception", exception);
+
+        return ErrorResponses.internalError();
     }
 }
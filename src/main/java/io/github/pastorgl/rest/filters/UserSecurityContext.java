@@ -0,0 +1,47 @@
+package io.github.pastorgl.rest.filters;
+
+import io.github.pastorgl.rest.entity.AuthorizedUser;
+import io.github.pastorgl.rest.entity.Role;
+
+import javax.ws.rs.core.SecurityContext;
+import java.security.Principal;
+
+/**
+ * Security context of a request authorized by {@link AuthProvider}. Role checks test the role bitmask of the
+ * {@link AuthorizedUser}, which is computed once per user and so is shared by all requests with a cached token.
+ */
+public final class UserSecurityContext implements SecurityContext {
+    private final AuthorizedUser user;
+    private final boolean secure;
+    private final String authenticationScheme;
+
+    public UserSecurityContext(AuthorizedUser user, boolean secure, String authenticationScheme) {
+        this.user = user;
+        this.secure = secure;
+        this.authenticationScheme = authenticationScheme;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return user;
+    }
+
+    @Override
+    public boolean isUserInRole(String role) {
+        return user.hasRole(Role.of(role));
+    }
+
+    public boolean isUserInRole(Role role) {
+        return user.hasRole(role);
+    }
+
+    @Override
+    public boolean isSecure() {
+        return secure;
+    }
+
+    @Override
+    public String getAuthenticationScheme() {
+        return authenticationScheme;
+    }
+}
@@ -2,6 +2,7 @@ package io.github.pastorgl.rest.filters;
 
 import io.github.pastorgl.rest.ErrorMessage;
 
+import javax.inject.Inject;
 import javax.validation.*;
 import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.GenericType;
@@ -10,12 +11,20 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
 import java.util.Iterator;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Properties;
 
 @Provider
 public class ValidationExceptionMapper implements ExceptionMapper<ValidationException> {
-    private static final Logger LOGGER = Logger.getLogger(ValidationExceptionMapper.class.getName());
+    private final ErrorLogger errorLogger;
+
+    public ValidationExceptionMapper() {
+        this(new Properties());
+    }
+
+    @Inject
+    public ValidationExceptionMapper(Properties properties) {
+        this.errorLogger = new ErrorLogger(ValidationExceptionMapper.class, properties);
+    }
 
     private static Response.Status getResponseStatus(final ConstraintViolationException violation) {
         final Iterator<ConstraintViolation<?>> iterator = violation.getConstraintViolations().iterator();
@@ -36,10 +45,16 @@ public class ValidationExceptionMapper implements ExceptionMapper<ValidationExce
     @Override
     public Response toResponse(ValidationException exception) {
         if (exception instanceof ConstraintViolationException) {
-            LOGGER.log(Level.FINER, "Constraint validation exception", exception);
-
             ConstraintViolationException cve = (ConstraintViolationException) exception;
-            final Response.ResponseBuilder response = Response.status(getResponseStatus(cve));
+            Response.Status status = getResponseStatus(cve);
+            if (status == Response.Status.INTERNAL_SERVER_ERROR) {
+                // invalid return value is a bug of our own
+                errorLogger.error("Constraint validation exception", exception);
+            } else {
+                errorLogger.warn("Constraint validation exception", exception);
+            }
+
+            final Response.ResponseBuilder response = Response.status(status);
 
             response.type(MediaType.APPLICATION_JSON_TYPE);
             response.entity(new GenericEntity<>(
@@ -50,7 +65,7 @@ public class ValidationExceptionMapper implements ExceptionMapper<ValidationExce
 
             return response.build();
         } else {
-            LOGGER.log(Level.WARNING, "Validation exception", exception);
+            errorLogger.warn("Validation exception", exception);
 
             return Response.serverError().entity(exception.getMessage()).build();
         }
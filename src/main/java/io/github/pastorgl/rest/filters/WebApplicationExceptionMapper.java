@@ -1,9 +1,6 @@
 package io.github.pastorgl.rest.filters;
 
-import io.github.pastorgl.rest.ErrorMessage;
-
 import javax.ws.rs.WebApplicationException;
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
@@ -13,12 +10,6 @@ public class WebApplicationExceptionMapper implements ExceptionMapper<WebApplica
 
     @Override
     public Response toResponse(WebApplicationException exception) {
-        Response exceptionResponse = exception.getResponse();
-        ErrorMessage errorMessage = new ErrorMessage(exception.getLocalizedMessage());
-
-        return Response.status(exceptionResponse.getStatus())
-                .type(MediaType.APPLICATION_JSON_TYPE)
-                .entity(errorMessage)
-                .build();
+        return ErrorResponses.of(exception.getResponse().getStatus(), exception.getLocalizedMessage());
     }
 }
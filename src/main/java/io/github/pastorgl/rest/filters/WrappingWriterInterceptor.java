@@ -1,8 +1,11 @@
 package io.github.pastorgl.rest.filters;
 
+import io.github.pastorgl.rest.Wrapping;
 import io.github.pastorgl.rest.entity.AuthorizedUser;
 import io.github.pastorgl.rest.entity.Token;
 import io.github.pastorgl.rest.ErrorMessage;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Priority;
 import javax.inject.Inject;
@@ -13,35 +16,65 @@ import javax.ws.rs.ext.Provider;
 import javax.ws.rs.ext.WriterInterceptor;
 import javax.ws.rs.ext.WriterInterceptorContext;
 import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.BaseStream;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
 
 @Provider
 @Priority(Priorities.USER)
 public class WrappingWriterInterceptor implements WriterInterceptor {
+    /**
+     * Never wrapped. Types listed in <code>wrapping.excluded.types</code> are excluded in addition to these
+     */
+    public static final String DEFAULT_EXCLUDED_TYPES = String.join(",",
+            AuthorizedUser.class.getName(), Token.class.getName(), ErrorMessage.class.getName(), StreamingOutput.class.getName(),
+            Iterator.class.getName(), BaseStream.class.getName());
 
     private UriInfo uriInfo;
 
+    private final Class<?>[] excludedTypes;
+    private final Map<Class<?>, Boolean> wrappedTypes = new ConcurrentHashMap<>();
+
+    public WrappingWriterInterceptor(UriInfo uriInfo) {
+        this(uriInfo, new Properties());
+    }
+
     @Inject
-    public WrappingWriterInterceptor(@Context UriInfo uriInfo) {
+    public WrappingWriterInterceptor(@Context UriInfo uriInfo, Properties properties) {
         this.uriInfo = uriInfo;
+
+        List<Class<?>> excludedTypes = new ArrayList<>();
+        String typeNames = DEFAULT_EXCLUDED_TYPES + ',' + properties.getProperty(GlobalConfig.PROPERTY_WRAPPING_EXCLUDED_TYPES, "");
+        for (String typeName : StringUtils.split(typeNames, ", ")) {
+            try {
+                excludedTypes.add(Class.forName(typeName, false, WrappingWriterInterceptor.class.getClassLoader()));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Unknown type '" + typeName + "' excluded from wrapping", e);
+            }
+        }
+        this.excludedTypes = excludedTypes.toArray(new Class<?>[0]);
     }
 
     @Override
     public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
-        if (!uriInfo.getPath().startsWith("openapi.")) {
-            MultivaluedMap<String, Object> headers = context.getHeaders();
-
-            if (!headers.containsKey(HttpHeaders.AUTHORIZATION) && !headers.containsKey(HttpHeaders.WWW_AUTHENTICATE)) {
+        Object entity = context.getEntity();
 
-                Object entity = context.getEntity();
+        if ((entity != null) && isWrapped(entity.getClass(), context.getAnnotations())) {
+            MultivaluedMap<String, Object> headers = context.getHeaders();
 
-                if (!((entity instanceof AuthorizedUser)
-                        || (entity instanceof Token)
-                        || (entity instanceof ErrorMessage)
-                        || (entity instanceof StreamingOutput))) {
-                    context.setEntity(entity);
+            if (!headers.containsKey(HttpHeaders.AUTHORIZATION) && !headers.containsKey(HttpHeaders.WWW_AUTHENTICATE)
+                    && !uriInfo.getPath(false).startsWith("openapi.")) {
+                if (!APPLICATION_JSON_TYPE.equals(context.getMediaType())) {
                     context.setMediaType(APPLICATION_JSON_TYPE);
+                }
+                if (context.getType() != entity.getClass()) {
                     context.setType(entity.getClass());
                 }
             }
@@ -49,4 +82,34 @@ public class WrappingWriterInterceptor implements WriterInterceptor {
 
         context.proceed();
     }
+
+    private boolean isWrapped(Class<?> entityClass, Annotation[] annotations) {
+        if (annotations != null) {
+            for (Annotation annotation : annotations) {
+                if (annotation instanceof Wrapping) {
+                    return ((Wrapping) annotation).value();
+                }
+            }
+        }
+
+        Boolean wrapped = wrappedTypes.get(entityClass);
+        if (wrapped == null) {
+            Wrapping wrapping = entityClass.getAnnotation(Wrapping.class);
+            if (wrapping != null) {
+                wrapped = wrapping.value();
+            } else {
+                wrapped = true;
+                for (Class<?> excludedType : excludedTypes) {
+                    if (excludedType.isAssignableFrom(entityClass)) {
+                        wrapped = false;
+                        break;
+                    }
+                }
+            }
+
+            wrappedTypes.putIfAbsent(entityClass, wrapped);
+        }
+
+        return wrapped;
+    }
 }
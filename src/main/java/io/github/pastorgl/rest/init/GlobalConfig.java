@@ -16,6 +16,67 @@ public abstract class GlobalConfig {
     public static final String PROPERTY_SERVER_INTERFACE = "server.interface";
     public static final String PROPERTY_DATABASE_URL = "database.url";
     public static final String PROPERTY_AUTH_CHECK_ENDPOINT = "auth.check.endpoint";
+    public static final String PROPERTY_AUTH_MODE = "auth.mode";
+    public static final String PROPERTY_AUTH_JWT_ALGORITHM = "auth.jwt.algorithm";
+    public static final String PROPERTY_AUTH_JWT_SECRET = "auth.jwt.secret";
+    public static final String PROPERTY_AUTH_JWT_PUBLIC_KEY = "auth.jwt.public.key";
+    public static final String PROPERTY_AUTH_JWT_JWKS_URL = "auth.jwt.jwks.url";
+    public static final String PROPERTY_AUTH_JWT_JWKS_REFRESH = "auth.jwt.jwks.refresh";
+    public static final String PROPERTY_AUTH_JWT_JWKS_MIN_REFRESH = "auth.jwt.jwks.min.refresh";
+    public static final String PROPERTY_AUTH_JWT_ISSUER = "auth.jwt.issuer";
+    public static final String PROPERTY_AUTH_JWT_AUDIENCE = "auth.jwt.audience";
+    public static final String PROPERTY_AUTH_JWT_LEEWAY = "auth.jwt.leeway";
+    public static final String PROPERTY_AUTH_JWT_CLAIM_EMAIL = "auth.jwt.claim.email";
+    public static final String PROPERTY_AUTH_JWT_CLAIM_ROLE = "auth.jwt.claim.role";
+    public static final String PROPERTY_AUTH_JWT_CLAIM_NAME = "auth.jwt.claim.name";
+    public static final String PROPERTY_AUTH_CACHE_SIZE = "auth.cache.size";
+    public static final String PROPERTY_AUTH_CACHE_TTL = "auth.cache.ttl";
+    public static final String PROPERTY_AUTH_NEGATIVE_CACHE_SIZE = "auth.negative.cache.size";
+    public static final String PROPERTY_AUTH_NEGATIVE_CACHE_TTL = "auth.negative.cache.ttl";
+    public static final String PROPERTY_AUTH_BREAKER_WINDOW = "auth.breaker.window";
+    public static final String PROPERTY_AUTH_BREAKER_MIN_CALLS = "auth.breaker.min.calls";
+    public static final String PROPERTY_AUTH_BREAKER_FAILURE_RATE = "auth.breaker.failure.rate";
+    public static final String PROPERTY_AUTH_BREAKER_SLOW_CALL_RATE = "auth.breaker.slow.call.rate";
+    public static final String PROPERTY_AUTH_BREAKER_SLOW_CALL_DURATION = "auth.breaker.slow.call.duration";
+    public static final String PROPERTY_AUTH_BREAKER_OPEN_DURATION = "auth.breaker.open.duration";
+    public static final String PROPERTY_AUTH_BREAKER_HALF_OPEN_CALLS = "auth.breaker.half.open.calls";
+    public static final String PROPERTY_AUTH_BULKHEAD_MAX_CALLS = "auth.bulkhead.max.calls";
+    public static final String PROPERTY_AUTH_CLIENT_MAX_CONNECTIONS = "auth.client.max.connections";
+    public static final String PROPERTY_AUTH_CLIENT_CONNECT_TIMEOUT = "auth.client.connect.timeout";
+    public static final String PROPERTY_AUTH_CLIENT_READ_TIMEOUT = "auth.client.read.timeout";
+    public static final String PROPERTY_AUTH_CLIENT_IDLE_EVICTION = "auth.client.idle.eviction";
+    public static final String PROPERTY_CORS_ALLOWED_ORIGINS = "cors.allowed.origins";
+    public static final String PROPERTY_CORS_ALLOWED_METHODS = "cors.allowed.methods";
+    public static final String PROPERTY_CORS_ALLOWED_HEADERS = "cors.allowed.headers";
+    public static final String PROPERTY_CORS_EXPOSED_HEADERS = "cors.exposed.headers";
+    public static final String PROPERTY_CORS_MAX_AGE = "cors.max.age";
+    public static final String PROPERTY_CORS_ALLOW_CREDENTIALS = "cors.allow.credentials";
+    public static final String PROPERTY_CORS_ORIGIN_CACHE_SIZE = "cors.origin.cache.size";
+    public static final String PROPERTY_WRAPPING_EXCLUDED_TYPES = "wrapping.excluded.types";
+    public static final String PROPERTY_COMPRESSION_ENABLED = "compression.enabled";
+    public static final String PROPERTY_COMPRESSION_DEFLATE = "compression.deflate";
+    public static final String PROPERTY_COMPRESSION_MIN_SIZE = "compression.min.size";
+    public static final String PROPERTY_COMPRESSION_LEVEL = "compression.level";
+    public static final String PROPERTY_COMPRESSION_POOL_SIZE = "compression.pool.size";
+    public static final String PROPERTY_ETAG_ENABLED = "etag.enabled";
+    public static final String PROPERTY_ETAG_MAX_SIZE = "etag.max.size";
+    public static final String PROPERTY_RESPONSE_CACHE_SIZE = "response.cache.size";
+    public static final String PROPERTY_RESPONSE_CACHE_MAX_ENTRY_SIZE = "response.cache.max.entry.size";
+    public static final String PROPERTY_ERROR_LOG_WINDOW = "error.log.window";
+    public static final String PROPERTY_ERROR_LOG_QUEUE_SIZE = "error.log.queue.size";
+    public static final String PROPERTY_SERVER_TIMING_HEADER = "server.timing.header";
+    public static final String PROPERTY_SERVER_TIMING_SAMPLE_RATE = "server.timing.sample.rate";
+    public static final String PROPERTY_RATE_LIMIT = "rate.limit";
+    public static final String PROPERTY_RATE_LIMIT_BURST = "rate.limit.burst";
+    public static final String PROPERTY_RATE_LIMIT_IDLE_EVICTION = "rate.limit.idle.eviction";
+    public static final String PROPERTY_RATE_LIMIT_TRUSTED_PROXIES = "rate.limit.trusted.proxies";
+    public static final String PROPERTY_CONCURRENCY_LIMIT_ENABLED = "concurrency.limit.enabled";
+    public static final String PROPERTY_CONCURRENCY_LIMIT_INITIAL = "concurrency.limit.initial";
+    public static final String PROPERTY_CONCURRENCY_LIMIT_MIN = "concurrency.limit.min";
+    public static final String PROPERTY_CONCURRENCY_LIMIT_MAX = "concurrency.limit.max";
+    public static final String PROPERTY_CONCURRENCY_LIMIT_TOLERANCE = "concurrency.limit.tolerance";
+    public static final String PROPERTY_CONCURRENCY_LIMIT_WINDOW = "concurrency.limit.window";
+    public static final String PROPERTY_CONCURRENCY_LIMIT_ADMIN_RESERVE = "concurrency.limit.admin.reserve";
     public static final String OPTION_CONFIG_PATH = "configPath";
     public static final String OPTION_SERVER_PORT = "port";
     public static final String OPTION_SERVER_INTERFACE = "iface";
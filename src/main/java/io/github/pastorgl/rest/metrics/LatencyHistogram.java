@@ -0,0 +1,111 @@
+package io.github.pastorgl.rest.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets in microseconds: every power of two range is split
+ * into four buckets, so any recorded value is off by no more than 25%. Values from 1 microsecond to about
+ * 67 seconds are told apart, longer ones are only counted as overflow.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 26;
+
+    public static final int OVERFLOW = MAX_EXPONENT * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(OVERFLOW + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public void record(long nanos) {
+        long micros = Math.max(0L, TimeUnit.NANOSECONDS.toMicros(nanos));
+
+        buckets.incrementAndGet(bucketOf(micros));
+        count.increment();
+        sum.add(micros);
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return OVERFLOW;
+        }
+
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return exclusive upper bound of bucket, microseconds, or {@link Long#MAX_VALUE} for overflow
+     */
+    public static long upperBound(int bucket) {
+        if (bucket >= OVERFLOW) {
+            return Long.MAX_VALUE;
+        }
+        if (bucket < SUB_BUCKETS) {
+            return bucket + 1L;
+        }
+
+        int exponent = bucket / SUB_BUCKETS + 1;
+        return (long) (SUB_BUCKETS + 1 + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @return true if bucket upper bound is a power of two, which are the bounds exposed to Prometheus
+     */
+    public static boolean isOctaveBound(int bucket) {
+        return (bucket < SUB_BUCKETS) || (bucket % SUB_BUCKETS == SUB_BUCKETS - 1);
+    }
+
+    public int getBucketCount() {
+        return buckets.length();
+    }
+
+    public long getBucket(int bucket) {
+        return buckets.get(bucket);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return sum of recorded values, microseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return upper bound of value at given percentile, microseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = new long[buckets.length()];
+        long total = 0L;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.D));
+        long seen = 0L;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+
+        return Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,177 @@
+package io.github.pastorgl.rest.metrics;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counts by status class and latency histograms per resource method, named by fully qualified class
+ * and method name, and latency of remote auth checks. Everything recorded by the filters goes to the
+ * {@link #getDefault() default} instance, which can be read via API or scraped as Prometheus text, e.g. by
+ * returning {@link #prometheus()} from a resource.
+ */
+public class RequestMetrics {
+    public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    public static final String UNMATCHED = "unmatched";
+
+    private static final RequestMetrics DEFAULT = new RequestMetrics();
+
+    private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Method, EndpointMetrics> methodEndpoints = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram authCheckLatency = new LatencyHistogram();
+    private final LongAdder authCheckFailures = new LongAdder();
+
+    public static RequestMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    public EndpointMetrics endpoint(Method method) {
+        if (method == null) {
+            return endpoint(UNMATCHED);
+        }
+
+        EndpointMetrics endpoint = methodEndpoints.get(method);
+        if (endpoint == null) {
+            endpoint = endpoint(method.getDeclaringClass().getName() + '.' + method.getName());
+            methodEndpoints.putIfAbsent(method, endpoint);
+        }
+
+        return endpoint;
+    }
+
+    public EndpointMetrics endpoint(String name) {
+        EndpointMetrics endpoint = endpoints.get(name);
+        if (endpoint == null) {
+            endpoints.putIfAbsent(name, new EndpointMetrics());
+            endpoint = endpoints.get(name);
+        }
+
+        return endpoint;
+    }
+
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return Collections.unmodifiableMap(endpoints);
+    }
+
+    public void recordAuthCheck(long nanos, boolean failure) {
+        authCheckLatency.record(nanos);
+        if (failure) {
+            authCheckFailures.increment();
+        }
+    }
+
+    public LatencyHistogram getAuthCheckLatency() {
+        return authCheckLatency;
+    }
+
+    public long getAuthCheckFailures() {
+        return authCheckFailures.sum();
+    }
+
+    public StreamingOutput prometheus() {
+        return output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            writePrometheus(writer);
+            writer.flush();
+        };
+    }
+
+    public void writePrometheus(Writer writer) throws IOException {
+        Map<String, EndpointMetrics> sorted = new TreeMap<>(endpoints);
+
+        writer.write("# HELP rest_requests_total Requests by resource method and status class\n");
+        writer.write("# TYPE rest_requests_total counter\n");
+        for (Map.Entry<String, EndpointMetrics> endpoint : sorted.entrySet()) {
+            for (int statusClass = 1; statusClass <= 5; statusClass++) {
+                long count = endpoint.getValue().getStatusCount(statusClass);
+                if (count > 0L) {
+                    writer.write("rest_requests_total{resource=\"");
+                    writer.write(escape(endpoint.getKey()));
+                    writer.write("\",status=\"" + statusClass + "xx\"} " + count + '\n');
+                }
+            }
+        }
+
+        writer.write("# HELP rest_request_duration_seconds Request latency by resource method\n");
+        writer.write("# TYPE rest_request_duration_seconds histogram\n");
+        for (Map.Entry<String, EndpointMetrics> endpoint : sorted.entrySet()) {
+            writeHistogram(writer, "rest_request_duration_seconds", "{resource=\"" + escape(endpoint.getKey()) + '"', endpoint.getValue().getLatency());
+        }
+
+        writer.write("# HELP rest_auth_check_duration_seconds Remote auth check latency\n");
+        writer.write("# TYPE rest_auth_check_duration_seconds histogram\n");
+        writeHistogram(writer, "rest_auth_check_duration_seconds", "{", authCheckLatency);
+
+        writer.write("# HELP rest_auth_check_failures_total Remote auth checks failed to complete\n");
+        writer.write("# TYPE rest_auth_check_failures_total counter\n");
+        writer.write("rest_auth_check_failures_total " + authCheckFailures.sum() + '\n');
+    }
+
+    private static void writeHistogram(Writer writer, String name, String labels, LatencyHistogram histogram) throws IOException {
+        String separator = (labels.length() > 1) ? "," : "";
+
+        long cumulative = 0L;
+        for (int bucket = 0; bucket < LatencyHistogram.OVERFLOW; bucket++) {
+            cumulative += histogram.getBucket(bucket);
+            if (LatencyHistogram.isOctaveBound(bucket)) {
+                writer.write(name + "_bucket" + labels + separator + "le=\"" + seconds(LatencyHistogram.upperBound(bucket)) + "\"} " + cumulative + '\n');
+            }
+        }
+        cumulative += histogram.getBucket(LatencyHistogram.OVERFLOW);
+        writer.write(name + "_bucket" + labels + separator + "le=\"+Inf\"} " + cumulative + '\n');
+
+        String plain = (labels.length() > 1) ? (labels + '}') : "";
+        writer.write(name + "_sum" + plain + ' ' + seconds(histogram.getSum()) + '\n');
+        writer.write(name + "_count" + plain + ' ' + cumulative + '\n');
+    }
+
+    private static String seconds(long micros) {
+        return Double.toString(micros / 1_000_000.D);
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    public static class EndpointMetrics {
+        private final LongAdder[] statusClasses = new LongAdder[6];
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private EndpointMetrics() {
+            for (int i = 0; i < statusClasses.length; i++) {
+                statusClasses[i] = new LongAdder();
+            }
+        }
+
+        public void record(int status, long nanos) {
+            int statusClass = status / 100;
+            statusClasses[((statusClass > 0) && (statusClass < statusClasses.length)) ? statusClass : 0].increment();
+            latency.record(nanos);
+        }
+
+        /**
+         * @param statusClass 1 to 5, for 1xx to 5xx
+         */
+        public long getStatusCount(int statusClass) {
+            return statusClasses[statusClass].sum();
+        }
+
+        public long getRequests() {
+            return latency.getCount();
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+}
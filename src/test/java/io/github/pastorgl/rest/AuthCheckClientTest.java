@@ -0,0 +1,78 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.filters.AuthCheckClient;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.client.ClientProperties;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthCheckClientTest {
+    private static final String EVICTOR_THREAD = "auth-check-idle-connection-evictor";
+
+    @Test
+    void connectorSettingsTest() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CLIENT_MAX_CONNECTIONS, "7");
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CLIENT_CONNECT_TIMEOUT, "300");
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CLIENT_READ_TIMEOUT, "200");
+
+        // accepted by the backlog, but never answered
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             AuthCheckClient authCheckClient = new AuthCheckClient(properties)) {
+            Client client = authCheckClient.getClient();
+            assertEquals(300, client.getConfiguration().getProperty(ClientProperties.CONNECT_TIMEOUT));
+            assertEquals(200, client.getConfiguration().getProperty(ClientProperties.READ_TIMEOUT));
+
+            PoolingHttpClientConnectionManager connectionManager = (PoolingHttpClientConnectionManager) client.getConfiguration()
+                    .getProperty(ApacheClientProperties.CONNECTION_MANAGER);
+            assertEquals(7, connectionManager.getMaxTotal());
+            assertEquals(7, connectionManager.getDefaultMaxPerRoute());
+
+            long start = System.nanoTime();
+            ProcessingException e = assertThrows(ProcessingException.class, () -> client
+                    .target("http://" + server.getInetAddress().getHostAddress() + ":" + server.getLocalPort())
+                    .request().get());
+            assertTrue(e.getCause() instanceof SocketTimeoutException);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3L));
+
+            assertEquals(7, connectionManager.getTotalStats().getMax());
+        }
+    }
+
+    @Test
+    void closeTest() throws Exception {
+        Set<Thread> before = evictors();
+
+        AuthCheckClient authCheckClient = new AuthCheckClient(new Properties());
+        Set<Thread> started = evictors();
+        started.removeAll(before);
+        assertEquals(1, started.size());
+
+        Thread evictor = started.iterator().next();
+        assertTrue(evictor.isDaemon());
+
+        authCheckClient.close();
+        evictor.join(TimeUnit.SECONDS.toMillis(5L));
+        assertFalse(evictor.isAlive());
+    }
+
+    private static Set<Thread> evictors() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> EVICTOR_THREAD.equals(t.getName()))
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+}
@@ -1,16 +1,25 @@
 package io.github.pastorgl.rest;
 
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.pastorgl.rest.entity.AuthorizedUser;
 import io.github.pastorgl.rest.entity.Role;
+import io.github.pastorgl.rest.filters.AuthCheckUnavailableException;
 import io.github.pastorgl.rest.filters.AuthHeader;
 import io.github.pastorgl.rest.filters.AuthProvider;
+import io.github.pastorgl.rest.filters.UserSecurityContext;
 import io.github.pastorgl.rest.init.GlobalConfig;
+import com.sun.net.httpserver.HttpServer;
+import org.glassfish.jersey.client.JerseyClient;
+import org.glassfish.jersey.client.JerseyClientBuilder;
 import org.glassfish.jersey.internal.util.collection.MultivaluedStringMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -19,15 +28,38 @@ import javax.annotation.security.DenyAll;
 import javax.annotation.security.PermitAll;
 import javax.annotation.security.RolesAllowed;
 import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.*;
 import javax.ws.rs.core.Response.Status;
 import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 class AuthProviderTest {
@@ -62,6 +94,48 @@ class AuthProviderTest {
         verify(requestContext, never()).abortWith(any());
     }
 
+    @Test
+    void securityContextRolesTest() {
+        Method method = mock(Method.class);
+        when(resourceInfo.getResourceClass()).thenReturn((Class) Class.class);
+        when(resourceInfo.getResourceMethod()).thenReturn(method);
+        when(method.isAnnotationPresent(PermitAll.class)).thenReturn(true);
+
+        MultivaluedMap<String, String> mockedHeaders = mock(MultivaluedStringMap.class);
+        when(mockedHeaders.getFirst(any())).thenReturn("Bearer USER");
+        when(requestContext.getHeaders()).thenReturn(mockedHeaders);
+
+        authenticationProvider.filter(requestContext);
+
+        ArgumentCaptor<SecurityContext> captor = ArgumentCaptor.forClass(SecurityContext.class);
+        verify(requestContext).setSecurityContext(captor.capture());
+        SecurityContext securityContext = captor.getValue();
+        assertTrue(securityContext.isUserInRole("user"));
+        assertTrue(securityContext.isUserInRole("USER"));
+        assertFalse(securityContext.isUserInRole("admin"));
+        assertFalse(securityContext.isUserInRole("unknown"));
+        assertFalse(securityContext.isSecure());
+
+        SecurityContext multiRole = new UserSecurityContext(new AuthorizedUser("test-uuid", null, Role.USER, null,
+                Arrays.asList(Role.ADMIN)), true, "Bearer");
+        assertTrue(multiRole.isUserInRole("user"));
+        assertTrue(multiRole.isUserInRole("Admin"));
+        assertTrue(multiRole.isSecure());
+    }
+
+    @Test
+    void userJsonTest() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        String single = objectMapper.writeValueAsString(new AuthorizedUser("test-uuid", null, Role.USER, null));
+        assertFalse(single.contains("roles"), single);
+
+        String multiRole = objectMapper.writeValueAsString(new AuthorizedUser("test-uuid", null, Role.USER, null,
+                Arrays.asList(Role.ADMIN)));
+        assertTrue(multiRole.contains("\"roles\":[\"ADMIN\"]"), multiRole);
+        assertTrue(objectMapper.readValue(multiRole, AuthorizedUser.class).hasRole(Role.ADMIN));
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"Bearer", "Digest", "Basic", "", " ", "foo"})
     void wrongHeaderTest(String header) {
@@ -109,6 +183,35 @@ class AuthProviderTest {
         verify(requestContext, never()).setSecurityContext(any());
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"Basic dXNlcjpwYXNz", "foo bar", " Bearer USER"})
+    void unsupportedSchemeTest(String header) {
+        Method method = mock(Method.class);
+        when(resourceInfo.getResourceClass()).thenReturn((Class) Class.class);
+        when(resourceInfo.getResourceMethod()).thenReturn(method);
+        when(method.isAnnotationPresent(PermitAll.class)).thenReturn(true);
+
+        MultivaluedMap<String, String> mockedHeaders = mock(MultivaluedStringMap.class);
+        when(mockedHeaders.getFirst(any())).thenReturn(header);
+        when(requestContext.getHeaders()).thenReturn(mockedHeaders);
+
+        assertSame(AuthHeader.UNSUPPORTED_AUTH_HEADER, AuthHeader.parse(header));
+
+        doAnswer((r) -> {
+            Response argument = r.getArgument(0);
+
+            assertEquals(Status.FORBIDDEN.getStatusCode(), argument.getStatus());
+
+            return null;
+        }).when(requestContext).abortWith(any());
+
+        authenticationProvider.filter(requestContext);
+
+        verify(requestContext, atLeastOnce()).abortWith(any());
+        verify(requestContext, never()).setSecurityContext(any());
+        assertEquals(0, authenticationProvider.checkCalls.get());
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"Bearer ", "Bearer wrong"})
     void wrongTokenTest(String headerParam) {
@@ -197,6 +300,340 @@ class AuthProviderTest {
         verify(requestContext, atLeastOnce()).abortWith(any());
     }
 
+    @ParameterizedTest
+    @EnumSource(value = Role.class)
+    void classRolesAllowedTest(Role role) throws Exception {
+        when(resourceInfo.getResourceMethod()).thenReturn(AdminResource.class.getMethod("get"));
+        when(resourceInfo.getResourceClass()).thenReturn((Class) AdminResource.class);
+
+        MultivaluedMap<String, String> mockedHeaders = mock(MultivaluedStringMap.class);
+        when(mockedHeaders.getFirst(any())).thenReturn("Bearer " + role.name());
+        when(requestContext.getHeaders()).thenReturn(mockedHeaders);
+
+        authenticationProvider.filter(requestContext);
+
+        if (role == Role.ADMIN) {
+            verify(requestContext, atLeastOnce()).setSecurityContext(any());
+            verify(requestContext, never()).abortWith(any());
+        } else {
+            verify(requestContext, never()).setSecurityContext(any());
+            verify(requestContext, atLeastOnce()).abortWith(any());
+        }
+    }
+
+    @Test
+    void cachedTokenTest() {
+        Method method = mock(Method.class);
+        when(resourceInfo.getResourceMethod()).thenReturn(method);
+        when(resourceInfo.getResourceClass()).thenReturn((Class) Class.class);
+        when(method.isAnnotationPresent(PermitAll.class)).thenReturn(true);
+
+        MultivaluedMap<String, String> mockedHeaders = mock(MultivaluedStringMap.class);
+        when(mockedHeaders.getFirst(any())).thenReturn("Bearer USER");
+        when(requestContext.getHeaders()).thenReturn(mockedHeaders);
+
+        authenticationProvider.filter(requestContext);
+        authenticationProvider.filter(requestContext);
+
+        verify(requestContext, times(2)).setSecurityContext(any());
+        assertEquals(1, authenticationProvider.checkCalls.get());
+        assertEquals(1, authenticationProvider.getTokenCache().hitCount());
+    }
+
+    @Test
+    void cacheTtlTest() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CHECK_ENDPOINT, "not-null");
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CACHE_TTL, "1");
+        CountingAuthProvider provider = new CountingAuthProvider(properties);
+
+        AuthHeader authHeader = AuthHeader.parse("Bearer USER");
+        provider.checkToken(authHeader);
+        provider.checkToken(authHeader);
+        assertEquals(1, provider.checkCalls.get());
+
+        Thread.sleep(1100L);
+
+        provider.checkToken(authHeader);
+        assertEquals(2, provider.checkCalls.get());
+    }
+
+    @Test
+    void jwtExpiryCacheTest() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CHECK_ENDPOINT, "not-null");
+        CountingAuthProvider provider = new CountingAuthProvider(properties);
+
+        // remotely checked, but the cache entry must not outlive the token, regardless of auth.cache.ttl
+        String token = JWT.create().withExpiresAt(new Date(System.currentTimeMillis() + 1000L)).sign(Algorithm.HMAC256("secret"));
+        AuthHeader authHeader = AuthHeader.parse("Bearer " + token);
+        provider.checkToken(authHeader);
+        provider.checkToken(authHeader);
+        assertEquals(1, provider.checkCalls.get());
+
+        Thread.sleep(1100L);
+
+        provider.checkToken(authHeader);
+        assertEquals(2, provider.checkCalls.get());
+        assertEquals(1, provider.getTokenCache().hitCount());
+    }
+
+    @Test
+    void coalescedCheckTest() throws Exception {
+        Method method = mock(Method.class);
+        when(resourceInfo.getResourceMethod()).thenReturn(method);
+        when(resourceInfo.getResourceClass()).thenReturn((Class) Class.class);
+        when(method.isAnnotationPresent(PermitAll.class)).thenReturn(true);
+
+        MultivaluedMap<String, String> mockedHeaders = mock(MultivaluedStringMap.class);
+        when(mockedHeaders.getFirst(any())).thenReturn("Bearer ADMIN");
+        when(requestContext.getHeaders()).thenReturn(mockedHeaders);
+
+        authenticationProvider.checkDelay = 500L;
+
+        int requests = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        for (int i = 0; i < requests; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    authenticationProvider.filter(requestContext);
+                } catch (InterruptedException ignored) {
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        verify(requestContext, times(requests)).setSecurityContext(any());
+        verify(requestContext, never()).abortWith(any());
+        assertEquals(1, authenticationProvider.checkCalls.get());
+    }
+
+    @Test
+    void rejectedTokenTest() {
+        Method method = mock(Method.class);
+        when(resourceInfo.getResourceMethod()).thenReturn(method);
+        when(resourceInfo.getResourceClass()).thenReturn((Class) Class.class);
+        when(method.isAnnotationPresent(PermitAll.class)).thenReturn(true);
+
+        MultivaluedMap<String, String> mockedHeaders = mock(MultivaluedStringMap.class);
+        when(mockedHeaders.getFirst(any())).thenReturn("Bearer expired");
+        when(requestContext.getHeaders()).thenReturn(mockedHeaders);
+
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CHECK_ENDPOINT, "not-null");
+
+        AtomicInteger checkCalls = new AtomicInteger();
+        AuthProvider rejectingProvider = new AuthProvider(properties, resourceInfo, uriInfo) {
+            @Override
+            protected AuthorizedUser callAuthCheckEndpoint(String authCheckEndpoint, AuthHeader authHeader) {
+                checkCalls.incrementAndGet();
+                return null;
+            }
+        };
+
+        doAnswer((r) -> {
+            assertEquals(Status.FORBIDDEN.getStatusCode(), r.<Response>getArgument(0).getStatus());
+
+            return null;
+        }).when(requestContext).abortWith(any());
+
+        for (int i = 0; i < 3; i++) {
+            rejectingProvider.filter(requestContext);
+        }
+
+        verify(requestContext, times(3)).abortWith(any());
+        assertEquals(1, checkCalls.get());
+        assertEquals(2, rejectingProvider.getRejectedTokenCache().hitCount());
+    }
+
+    @Test
+    void transientCheckFailureTest() throws Exception {
+        Method method = mock(Method.class);
+        when(resourceInfo.getResourceMethod()).thenReturn(method);
+        when(resourceInfo.getResourceClass()).thenReturn((Class) Class.class);
+        when(method.isAnnotationPresent(PermitAll.class)).thenReturn(true);
+
+        MultivaluedMap<String, String> mockedHeaders = mock(MultivaluedStringMap.class);
+        when(requestContext.getHeaders()).thenReturn(mockedHeaders);
+
+        List<Integer> statuses = new ArrayList<>();
+        doAnswer((r) -> {
+            statuses.add(r.<Response>getArgument(0).getStatus());
+
+            return null;
+        }).when(requestContext).abortWith(any());
+
+        AtomicInteger checkStatus = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/check", exchange -> {
+            byte[] body = "{\"id\":\"test-uuid\",\"role\":\"USER\"}".getBytes(StandardCharsets.UTF_8);
+            int status = checkStatus.get();
+            exchange.getResponseHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+            exchange.sendResponseHeaders(status, (status == 200) ? body.length : -1);
+            if (status == 200) {
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CHECK_ENDPOINT, "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+        AuthProvider provider = new AuthProvider(properties, resourceInfo, uriInfo);
+        try {
+            when(mockedHeaders.getFirst(any())).thenReturn("Bearer valid");
+            for (int status : new int[]{429, 408}) {
+                checkStatus.set(status);
+                provider.filter(requestContext);
+            }
+            // not cached as rejected, so the token works once the auth service recovers
+            checkStatus.set(200);
+            provider.filter(requestContext);
+            verify(requestContext).setSecurityContext(any());
+
+            when(mockedHeaders.getFirst(any())).thenReturn("Bearer revoked");
+            checkStatus.set(401);
+            provider.filter(requestContext);
+            provider.filter(requestContext);
+
+            assertEquals(Arrays.asList(503, 503, 403, 403), statuses);
+            assertEquals(1, provider.getRejectedTokenCache().hitCount());
+        } finally {
+            provider.close();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void openCircuitTest() {
+        Method method = mock(Method.class);
+        when(resourceInfo.getResourceMethod()).thenReturn(method);
+        when(resourceInfo.getResourceClass()).thenReturn((Class) Class.class);
+        when(method.isAnnotationPresent(PermitAll.class)).thenReturn(true);
+
+        MultivaluedMap<String, String> mockedHeaders = mock(MultivaluedStringMap.class);
+        when(mockedHeaders.getFirst(any())).thenReturn("Bearer USER");
+        when(requestContext.getHeaders()).thenReturn(mockedHeaders);
+
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CHECK_ENDPOINT, "not-null");
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_BREAKER_WINDOW, "2");
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_BREAKER_MIN_CALLS, "2");
+
+        AtomicInteger checkCalls = new AtomicInteger();
+        AuthProvider failingProvider = new AuthProvider(properties, resourceInfo, uriInfo) {
+            @Override
+            protected AuthorizedUser callAuthCheckEndpoint(String authCheckEndpoint, AuthHeader authHeader) {
+                checkCalls.incrementAndGet();
+                throw new ProcessingException("Connection refused");
+            }
+        };
+
+        List<Integer> statuses = new ArrayList<>();
+        doAnswer((r) -> {
+            statuses.add(r.<Response>getArgument(0).getStatus());
+
+            return null;
+        }).when(requestContext).abortWith(any());
+
+        for (int i = 0; i < 3; i++) {
+            failingProvider.filter(requestContext);
+        }
+
+        assertEquals(2, checkCalls.get());
+        assertEquals(Arrays.asList(403, 403, 503), statuses);
+    }
+
+    @Test
+    void asyncCheckTest() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CHECK_ENDPOINT, "not-null");
+
+        AtomicInteger checkCalls = new AtomicInteger();
+        CompletableFuture<AuthorizedUser> call = new CompletableFuture<>();
+        AuthProvider asyncProvider = new AuthProvider(properties, resourceInfo, uriInfo) {
+            @Override
+            protected CompletionStage<AuthorizedUser> callAuthCheckEndpointAsync(String authCheckEndpoint, AuthHeader authHeader) {
+                checkCalls.incrementAndGet();
+                return call;
+            }
+        };
+
+        AuthHeader authHeader = AuthHeader.parse("Bearer USER");
+        CompletableFuture<AuthorizedUser> first = asyncProvider.checkTokenAsync(authHeader).toCompletableFuture();
+        CompletableFuture<AuthorizedUser> second = asyncProvider.checkTokenAsync(authHeader).toCompletableFuture();
+
+        // nobody waits for the auth service, and concurrent checks of one token share a single call
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+        call.complete(new AuthorizedUser("test-uuid", null, Role.USER, null));
+
+        assertEquals("test-uuid", first.get().getId());
+        assertEquals("test-uuid", second.get().getId());
+        assertEquals("test-uuid", asyncProvider.checkTokenAsync(authHeader).toCompletableFuture().get().getId());
+        assertEquals(1, checkCalls.get());
+        assertEquals(1, asyncProvider.getTokenCache().hitCount());
+    }
+
+    @Test
+    void asyncRemoteCheckTest() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/check", exchange -> {
+            byte[] body = "{\"id\":\"test-uuid\",\"role\":\"USER\"}".getBytes(StandardCharsets.UTF_8);
+            String token = exchange.getRequestHeaders().getFirst(HttpHeaders.AUTHORIZATION).substring("bearer ".length());
+            int status = "valid".equals(token) ? 200 : ("revoked".equals(token) ? 401 : 429);
+            exchange.getResponseHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+            exchange.sendResponseHeaders(status, (status == 200) ? body.length : -1);
+            if (status == 200) {
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_CHECK_ENDPOINT, "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+        AuthProvider provider = new AuthProvider(properties, resourceInfo, uriInfo);
+        try {
+            assertEquals("test-uuid", provider.checkTokenAsync(AuthHeader.parse("Bearer valid")).toCompletableFuture().get(5, TimeUnit.SECONDS).getId());
+            assertNull(provider.checkTokenAsync(AuthHeader.parse("Bearer revoked")).toCompletableFuture().get(5, TimeUnit.SECONDS));
+
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> provider.checkTokenAsync(AuthHeader.parse("Bearer throttled")).toCompletableFuture().get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof AuthCheckUnavailableException, String.valueOf(e.getCause()));
+            assertNull(provider.getRejectedTokenCache().get("throttled"));
+        } finally {
+            provider.close();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void authorizeAsyncTest() throws Exception {
+        AsyncAuthResource.authProvider = authenticationProvider;
+        try (TestServer server = new TestServer(new Properties())) {
+            JerseyClient client = new JerseyClientBuilder().build();
+            try {
+                assertEquals(401, client.target(TestServer.BASE_URI + "async-auth/admin").request().get().getStatus());
+                assertEquals(403, client.target(TestServer.BASE_URI + "async-auth/admin").request()
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer USER").get().getStatus());
+
+                Response admin = client.target(TestServer.BASE_URI + "async-auth/admin").request()
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer ADMIN").get();
+                assertEquals(200, admin.getStatus());
+                assertEquals("test-uuid", admin.readEntity(String.class));
+            } finally {
+                client.close();
+            }
+        } finally {
+            AsyncAuthResource.authProvider = null;
+        }
+    }
+
     @BeforeEach
     void init() throws Exception {
         MockitoAnnotations.initMocks(this);
@@ -206,7 +643,48 @@ class AuthProviderTest {
         when(uriInfo.getAbsolutePath()).thenReturn(new URL("http://not-null").toURI());
     }
 
+    @RolesAllowed("admin")
+    public static class AdminResource {
+        public void get() {
+        }
+    }
+
+    @Path("async-auth")
+    public static class AsyncAuthResource {
+        static volatile AuthProvider authProvider;
+
+        @GET
+        @Path("admin")
+        @Produces(MediaType.TEXT_PLAIN)
+        public void admin(@HeaderParam(HttpHeaders.AUTHORIZATION) String authorization, @Suspended AsyncResponse response) {
+            authProvider.authorizeAsync(authorization, Role.ADMIN).whenComplete((user, e) -> {
+                if (e != null) {
+                    response.resume(e);
+                } else {
+                    response.resume(user.getId());
+                }
+            });
+        }
+    }
+
+    private class CountingAuthProvider extends AuthProvider {
+        AtomicInteger checkCalls = new AtomicInteger();
+
+        CountingAuthProvider(Properties properties) {
+            super(properties, resourceInfo, uriInfo);
+        }
+
+        @Override
+        protected AuthorizedUser callAuthCheckEndpoint(String authCheckEndpoint, AuthHeader authHeader) {
+            checkCalls.incrementAndGet();
+            return new AuthorizedUser("test-uuid", null, Role.USER, null);
+        }
+    }
+
     private static class TestAuthProvider extends AuthProvider {
+        AtomicInteger checkCalls = new AtomicInteger();
+        long checkDelay;
+
         @Inject
         public TestAuthProvider(Properties properties, @Context ResourceInfo resourceInfo, @Context UriInfo uriInfo) {
             super(new Properties() {{setProperty(GlobalConfig.PROPERTY_AUTH_CHECK_ENDPOINT, "not-null");}}, resourceInfo, uriInfo);
@@ -214,7 +692,20 @@ class AuthProviderTest {
 
         @Override
         public AuthorizedUser callAuthCheckEndpoint(String authCheckEndpoint, AuthHeader authHeader) {
+            checkCalls.incrementAndGet();
+            if (checkDelay > 0L) {
+                try {
+                    Thread.sleep(checkDelay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
             return new AuthorizedUser("test-uuid", "test@email.com", Role.valueOf(authHeader.param), "name");
         }
+
+        @Override
+        protected CompletionStage<AuthorizedUser> callAuthCheckEndpointAsync(String authCheckEndpoint, AuthHeader authHeader) {
+            return CompletableFuture.supplyAsync(() -> callAuthCheckEndpoint(authCheckEndpoint, authHeader));
+        }
     }
 }
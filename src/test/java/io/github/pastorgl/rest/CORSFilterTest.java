@@ -1,6 +1,8 @@
 package io.github.pastorgl.rest;
 
 import io.github.pastorgl.rest.filters.CORSFilter;
+import io.github.pastorgl.rest.filters.CORSPreflightFilter;
+import io.github.pastorgl.rest.init.GlobalConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -9,11 +11,19 @@ import org.mockito.Mockito;
 
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
 
 import static javax.ws.rs.HttpMethod.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CORSFilterTest {
@@ -48,7 +58,11 @@ class CORSFilterTest {
         MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
         Mockito.when(responseContext.getHeaders()).thenReturn(headers);
 
-        CORSFilter corsFilter = new CORSFilter();
+        Mockito.when(requestContext.getHeaderString("Origin")).thenReturn("https://app.example.com");
+
+        Properties properties = allowlist();
+        properties.setProperty(GlobalConfig.PROPERTY_CORS_ALLOW_CREDENTIALS, "true");
+        CORSFilter corsFilter = new CORSFilter(properties);
         corsFilter.filter(requestContext, responseContext);
 
         assertTrue(headers.containsKey("Access-Control-Allow-Origin"));
@@ -59,6 +73,51 @@ class CORSFilterTest {
         assertTrue(headers.containsKey("Access-Control-Expose-Headers"));
     }
 
+    @Test
+    void defaultPolicyTest() {
+        Mockito.when(requestContext.getMethod()).thenReturn(OPTIONS);
+        Mockito.when(requestContext.getHeaderString("Origin")).thenReturn("https://evil.org");
+
+        ContainerResponseContext responseContext = Mockito.mock(ContainerResponseContext.class);
+        MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+        Mockito.when(responseContext.getHeaders()).thenReturn(headers);
+
+        CORSFilter corsFilter = new CORSFilter();
+        corsFilter.filter(requestContext, responseContext);
+
+        // any origin by default, but never reflected and never with credentials
+        assertEquals("*", headers.getFirst("Access-Control-Allow-Origin"));
+        assertFalse(headers.containsKey("Access-Control-Allow-Credentials"));
+
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_CORS_ALLOW_CREDENTIALS, "true");
+        assertThrows(IllegalArgumentException.class, () -> new CORSFilter(properties));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {GET, POST})
+    void credentialedRequestTest(String method) {
+        Mockito.when(requestContext.getMethod()).thenReturn(method);
+        Mockito.when(requestContext.getHeaderString("Origin")).thenReturn("https://app.example.com");
+
+        ContainerResponseContext responseContext = Mockito.mock(ContainerResponseContext.class);
+        MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE);
+        Mockito.when(responseContext.getHeaders()).thenReturn(headers);
+
+        Properties properties = allowlist();
+        properties.setProperty(GlobalConfig.PROPERTY_CORS_ALLOW_CREDENTIALS, "true");
+        CORSFilter corsFilter = new CORSFilter(properties);
+        corsFilter.filter(requestContext, responseContext);
+        corsFilter.filter(requestContext, responseContext);
+
+        assertEquals("https://app.example.com", headers.getFirst("Access-Control-Allow-Origin"));
+        assertEquals("true", headers.getFirst("Access-Control-Allow-Credentials"));
+        assertFalse(headers.containsKey("Access-Control-Allow-Methods"));
+        // the resource's own Vary is kept, and Origin is added only once
+        assertEquals(Arrays.asList(HttpHeaders.ACCEPT_LANGUAGE, "Origin"), headers.get(HttpHeaders.VARY));
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {GET, POST, DELETE, PUT, HEAD})
     void corsHeaderTest(String method) {
@@ -74,4 +133,78 @@ class CORSFilterTest {
         assertTrue(headers.containsKey("Access-Control-Allow-Origin"));
         assertTrue(headers.containsKey("Access-Control-Expose-Headers"));
     }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"https://app.example.com", "https://a.b.example.com", "HTTPS://APP.EXAMPLE.COM", "http://localhost:3000"})
+    void allowedOriginTest(String origin) {
+        Mockito.when(requestContext.getMethod()).thenReturn(GET);
+        Mockito.when(requestContext.getHeaderString("Origin")).thenReturn(origin);
+
+        ContainerResponseContext responseContext = Mockito.mock(ContainerResponseContext.class);
+        MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+        Mockito.when(responseContext.getHeaders()).thenReturn(headers);
+
+        CORSFilter corsFilter = new CORSFilter(allowlist());
+        corsFilter.filter(requestContext, responseContext);
+
+        assertEquals(origin, headers.getFirst("Access-Control-Allow-Origin"));
+        assertTrue(headers.containsKey("Access-Control-Expose-Headers"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"https://example.com", "http://app.example.com", "https://app.example.com.evil.org", "https://evil.org", "http://localhost:3001"})
+    void disallowedOriginTest(String origin) {
+        Mockito.when(requestContext.getMethod()).thenReturn(OPTIONS);
+        Mockito.when(requestContext.getHeaderString("Origin")).thenReturn(origin);
+
+        ContainerResponseContext responseContext = Mockito.mock(ContainerResponseContext.class);
+        MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+        Mockito.when(responseContext.getHeaders()).thenReturn(headers);
+
+        CORSFilter corsFilter = new CORSFilter(allowlist());
+        corsFilter.filter(requestContext, responseContext);
+
+        assertTrue(headers.isEmpty());
+    }
+
+    @Test
+    void preflightTest() {
+        Mockito.when(requestContext.getMethod()).thenReturn(OPTIONS);
+        Mockito.when(requestContext.getHeaderString("Origin")).thenReturn("https://app.example.com");
+        Mockito.when(requestContext.getHeaderString("Access-Control-Request-Method")).thenReturn(PUT);
+
+        List<Response> responses = new ArrayList<>();
+        Mockito.doAnswer(invocation -> responses.add(invocation.getArgument(0)))
+                .when(requestContext).abortWith(Mockito.any(Response.class));
+
+        CORSPreflightFilter preflightFilter = new CORSPreflightFilter(allowlist());
+        preflightFilter.filter(requestContext);
+        preflightFilter.filter(requestContext);
+
+        assertEquals(2, responses.size());
+        assertNotSame(responses.get(0), responses.get(1));
+        for (Response response : responses) {
+            assertEquals(204, response.getStatus());
+            assertEquals("https://app.example.com", response.getHeaderString("Access-Control-Allow-Origin"));
+            assertTrue(response.getHeaders().containsKey("Access-Control-Allow-Methods"));
+            assertTrue(response.getHeaders().containsKey("Access-Control-Max-Age"));
+        }
+        Mockito.verify(requestContext, Mockito.times(2)).setProperty(CORSPreflightFilter.PREFLIGHT_PROPERTY, Boolean.TRUE);
+    }
+
+    @Test
+    void notPreflightTest() {
+        Mockito.when(requestContext.getMethod()).thenReturn(OPTIONS);
+
+        CORSPreflightFilter preflightFilter = new CORSPreflightFilter(allowlist());
+        preflightFilter.filter(requestContext);
+
+        Mockito.verify(requestContext, Mockito.never()).abortWith(Mockito.any());
+    }
+
+    private static Properties allowlist() {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_CORS_ALLOWED_ORIGINS, "https://*.example.com, http://localhost:3000");
+        return properties;
+    }
 }
@@ -0,0 +1,140 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.filters.CompressionWriterInterceptor;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressionWriterInterceptorTest {
+    private static final String SMALL = "{\"error\":\"small\"}";
+    private static final String LARGE = new String(new char[4000]).replace("\0", "{\"error\":\"large\"}");
+
+    @Test
+    void gzipTest() throws Exception {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        byte[] body = write(interceptor("gzip, deflate;q=0.5", new Properties()), LARGE, headers);
+
+        assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, headers.getFirst(HttpHeaders.VARY));
+        assertTrue(body.length < LARGE.length());
+        assertEquals(LARGE, IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(body)), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void singleBytesTest() throws Exception {
+        for (String encoding : new String[]{"gzip", "deflate"}) {
+            Properties properties = new Properties();
+            properties.setProperty(GlobalConfig.PROPERTY_COMPRESSION_DEFLATE, "true");
+
+            MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+            byte[] body = write(interceptor(encoding, properties), LARGE, headers, 1);
+
+            assertEquals(encoding, headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+            InputStream inflated = encoding.equals("gzip") ? new GZIPInputStream(new ByteArrayInputStream(body))
+                    : new InflaterInputStream(new ByteArrayInputStream(body));
+            assertEquals(LARGE, IOUtils.toString(inflated, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void deflateTest() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_COMPRESSION_DEFLATE, "true");
+        CompressionWriterInterceptor interceptor = interceptor("gzip;q=0.5, deflate", properties);
+
+        for (int i = 0; i < 2; i++) {
+            MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+            byte[] body = write(interceptor, LARGE, headers);
+
+            assertEquals("deflate", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(LARGE, IOUtils.toString(new InflaterInputStream(new ByteArrayInputStream(body)), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void belowThresholdTest() throws Exception {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        byte[] body = write(interceptor("gzip", new Properties()), SMALL, headers);
+
+        assertFalse(headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(SMALL, new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void notAcceptedTest() throws Exception {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        byte[] body = write(interceptor("gzip;q=0, identity", new Properties()), LARGE, headers);
+
+        assertFalse(headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(LARGE, new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void disabledByDefaultTest() throws Exception {
+        HttpHeaders httpHeaders = Mockito.mock(HttpHeaders.class);
+        Mockito.when(httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip");
+
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        byte[] body = write(new CompressionWriterInterceptor(httpHeaders, new Properties()), LARGE, headers);
+
+        assertFalse(headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(LARGE, new String(body, StandardCharsets.UTF_8));
+    }
+
+    private static CompressionWriterInterceptor interceptor(String acceptEncoding, Properties properties) {
+        HttpHeaders httpHeaders = Mockito.mock(HttpHeaders.class);
+        Mockito.when(httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING)).thenReturn(acceptEncoding);
+
+        properties.setProperty(GlobalConfig.PROPERTY_COMPRESSION_ENABLED, "true");
+        return new CompressionWriterInterceptor(httpHeaders, properties);
+    }
+
+    private static byte[] write(CompressionWriterInterceptor interceptor, String entity, MultivaluedMap<String, Object> headers) throws Exception {
+        return write(interceptor, entity, headers, 100);
+    }
+
+    private static byte[] write(CompressionWriterInterceptor interceptor, String entity, MultivaluedMap<String, Object> headers, int piece) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStream[] stream = {out};
+
+        WriterInterceptorContext context = Mockito.mock(WriterInterceptorContext.class);
+        Mockito.when(context.getHeaders()).thenReturn(headers);
+        Mockito.when(context.getOutputStream()).then(invocation -> stream[0]);
+        Mockito.doAnswer(invocation -> stream[0] = invocation.getArgument(0)).when(context).setOutputStream(Mockito.any());
+        Mockito.doAnswer(invocation -> {
+            // the way JSON writers behave: write in pieces, flush, then close
+            byte[] bytes = entity.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < bytes.length; i += piece) {
+                if (piece == 1) {
+                    stream[0].write(bytes[i]);
+                } else {
+                    stream[0].write(bytes, i, Math.min(piece, bytes.length - i));
+                }
+            }
+            stream[0].flush();
+            stream[0].close();
+            return null;
+        }).when(context).proceed();
+
+        interceptor.aroundWriteTo(context);
+
+        assertSame(out, stream[0]);
+        return out.toByteArray();
+    }
+}
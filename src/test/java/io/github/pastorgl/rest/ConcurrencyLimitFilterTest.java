@@ -0,0 +1,190 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.entity.AuthorizedUser;
+import io.github.pastorgl.rest.entity.Role;
+import io.github.pastorgl.rest.filters.AdaptiveConcurrencyLimit;
+import io.github.pastorgl.rest.filters.ConcurrencyLimitFilter;
+import io.github.pastorgl.rest.filters.ConcurrencyReserveFilter;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.glassfish.jersey.client.JerseyClient;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import javax.annotation.Priority;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.ext.Provider;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimitFilterTest {
+    @Test
+    void shedTest() {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_ENABLED, "true");
+        properties.setProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_INITIAL, "2");
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties);
+
+        ContainerRequestContext first = request(null);
+        filter.filter(first);
+        ContainerRequestContext second = request(null);
+        filter.filter(second);
+        Mockito.verify(first, Mockito.never()).abortWith(Mockito.any());
+        Mockito.verify(second, Mockito.never()).abortWith(Mockito.any());
+
+        ContainerRequestContext shed = request(null);
+        filter.filter(shed);
+        ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+        Mockito.verify(shed).abortWith(response.capture());
+        assertEquals(503, response.getValue().getStatus());
+        filter.filter(shed, Mockito.mock(ContainerResponseContext.class));
+        assertEquals(2, filter.getLimit().getInFlight());
+
+        // released only once
+        filter.filter(first, Mockito.mock(ContainerResponseContext.class));
+        filter.filter(first, Mockito.mock(ContainerResponseContext.class));
+        assertEquals(1, filter.getLimit().getInFlight());
+
+        ContainerRequestContext next = request(null);
+        filter.filter(next);
+        Mockito.verify(next, Mockito.never()).abortWith(Mockito.any());
+    }
+
+    @Test
+    void failedChainTest() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_ENABLED, "true");
+        properties.setProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_INITIAL, "2");
+        properties.setProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_MIN, "2");
+        properties.setProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_MAX, "2");
+
+        try (TestServer server = new TestServer(properties)) {
+            JerseyClient client = new JerseyClientBuilder().build();
+            try {
+                // a response filter fails after admission, so the response filter of the limit never runs
+                for (int i = 0; i < 4; i++) {
+                    assertEquals(500, client.target(TestServer.BASE_URI + "concurrency/entity").request()
+                            .header(FailingResponseFilter.HEADER_FAIL, "true").get().getStatus());
+                }
+
+                assertEquals(200, client.target(TestServer.BASE_URI + "concurrency/entity").request().get().getStatus());
+            } finally {
+                client.close();
+            }
+        }
+    }
+
+    @Test
+    void adminReserveTest() {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_ENABLED, "true");
+        properties.setProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_INITIAL, "4");
+        properties.setProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_ADMIN_RESERVE, "0.5");
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties);
+        ConcurrencyReserveFilter reserve = new ConcurrencyReserveFilter();
+
+        for (int i = 0; i < 2; i++) {
+            ContainerRequestContext user = request(new AuthorizedUser("user-1", null, Role.USER, null));
+            filter.filter(user);
+            reserve.filter(user);
+            Mockito.verify(user, Mockito.never()).abortWith(Mockito.any());
+        }
+
+        ContainerRequestContext user = request(new AuthorizedUser("user-1", null, Role.USER, null));
+        filter.filter(user);
+        reserve.filter(user);
+        Mockito.verify(user).abortWith(Mockito.any());
+        assertEquals(2, filter.getLimit().getInFlight());
+
+        for (int i = 0; i < 2; i++) {
+            ContainerRequestContext admin = request(new AuthorizedUser("admin-1", null, Role.ADMIN, null));
+            filter.filter(admin);
+            reserve.filter(admin);
+            Mockito.verify(admin, Mockito.never()).abortWith(Mockito.any());
+        }
+        assertEquals(4, filter.getLimit().getInFlight());
+    }
+
+    @Test
+    void adaptiveLimitTest() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_INITIAL, "20");
+        properties.setProperty(GlobalConfig.PROPERTY_CONCURRENCY_LIMIT_WINDOW, "1");
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(properties);
+
+        for (int i = 0; i < 20; i++) {
+            saturate(limit, TimeUnit.MILLISECONDS.toNanos(1L));
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 20);
+
+        for (int i = 0; i < 20; i++) {
+            saturate(limit, TimeUnit.MILLISECONDS.toNanos(50L));
+        }
+        assertTrue(limit.getLimit() < grown);
+        assertTrue(limit.getLimit() >= AdaptiveConcurrencyLimit.DEFAULT_MIN_LIMIT);
+        assertEquals(0, limit.getInFlight());
+    }
+
+    private static void saturate(AdaptiveConcurrencyLimit limit, long rtt) throws InterruptedException {
+        int admitted = 0;
+        while (limit.tryAcquire()) {
+            admitted++;
+        }
+        for (int i = 0; i < admitted; i++) {
+            limit.release(rtt);
+        }
+        Thread.sleep(2L);
+    }
+
+    @Path("concurrency")
+    @Produces(MediaType.APPLICATION_JSON)
+    public static class ConcurrencyEndpoint {
+        @GET
+        @Path("entity")
+        public Response entity() {
+            return Response.ok(new ErrorMessage("entity")).build();
+        }
+    }
+
+    @Provider
+    @Priority(Priorities.USER)
+    public static class FailingResponseFilter implements ContainerResponseFilter {
+        static final String HEADER_FAIL = "X-Fail-Response-Filter";
+
+        @Override
+        public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+            if (requestContext.getHeaderString(HEADER_FAIL) != null) {
+                throw new IllegalStateException("Response filter failed");
+            }
+        }
+    }
+
+    private static ContainerRequestContext request(AuthorizedUser user) {
+        ContainerRequestContext requestContext = Mockito.mock(ContainerRequestContext.class);
+        SecurityContext securityContext = Mockito.mock(SecurityContext.class);
+        Mockito.when(securityContext.getUserPrincipal()).thenReturn(user);
+        Mockito.when(requestContext.getSecurityContext()).thenReturn(securityContext);
+
+        Map<String, Object> properties = new HashMap<>();
+        Mockito.doAnswer(i -> properties.put(i.getArgument(0), i.getArgument(1))).when(requestContext).setProperty(Mockito.anyString(), Mockito.any());
+        Mockito.doAnswer(i -> properties.remove(i.<String>getArgument(0))).when(requestContext).removeProperty(Mockito.anyString());
+        Mockito.when(requestContext.getProperty(Mockito.anyString())).thenAnswer(i -> properties.get(i.<String>getArgument(0)));
+
+        return requestContext;
+    }
+}
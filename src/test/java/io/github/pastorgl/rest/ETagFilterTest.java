@@ -0,0 +1,166 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.filters.ETagFilter;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.glassfish.jersey.client.JerseyClient;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mockito;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.*;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ETagFilterTest {
+    private TestServer server;
+    private JerseyClient client;
+
+    @BeforeAll
+    public void beforeAll() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_ETAG_ENABLED, "true");
+        server = new TestServer(properties);
+        client = new JerseyClientBuilder().build();
+    }
+
+    @AfterAll
+    public void afterAll() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void notModified() {
+        Response response = client.target(TestServer.BASE_URI + "etag/entity").request().get();
+
+        assertEquals(200, response.getStatus());
+        EntityTag entityTag = response.getEntityTag();
+        assertNotNull(entityTag);
+        assertTrue(entityTag.isWeak());
+        response.close();
+
+        Response conditional = client.target(TestServer.BASE_URI + "etag/entity").request()
+                .header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/\"" + entityTag.getValue() + "\"")
+                .get();
+
+        assertEquals(304, conditional.getStatus());
+        assertEquals(entityTag, conditional.getEntityTag());
+        assertFalse(conditional.hasEntity());
+    }
+
+    @Test
+    public void notModifiedVersion() {
+        Response response = client.target(TestServer.BASE_URI + "etag/versioned").request()
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v1\"")
+                .get();
+
+        assertEquals(304, response.getStatus());
+        assertEquals(new EntityTag("v1"), response.getEntityTag());
+
+        Response modified = client.target(TestServer.BASE_URI + "etag/versioned").request()
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v0\"")
+                .get();
+
+        assertEquals(200, modified.getStatus());
+        assertDoesNotThrow(() -> modified.readEntity(ErrorMessage.class));
+    }
+
+    @Test
+    public void disabledByDefault() {
+        ContainerRequestContext requestContext = Mockito.mock(ContainerRequestContext.class);
+        Mockito.when(requestContext.getMethod()).thenReturn(HttpMethod.GET);
+        ContainerResponseContext responseContext = Mockito.mock(ContainerResponseContext.class);
+        Mockito.when(responseContext.getStatus()).thenReturn(200);
+        Mockito.when(responseContext.hasEntity()).thenReturn(true);
+        Mockito.when(responseContext.getEntity()).thenReturn(new ErrorMessage("entity"));
+
+        new ETagFilter().filter(requestContext, responseContext);
+
+        Mockito.verify(requestContext, Mockito.never()).setProperty(Mockito.anyString(), Mockito.any());
+        Mockito.verify(responseContext, Mockito.never()).setStatus(Mockito.anyInt());
+    }
+
+    @Test
+    public void singleBytes() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_ETAG_ENABLED, "true");
+        properties.setProperty(GlobalConfig.PROPERTY_ETAG_MAX_SIZE, "32");
+        ETagFilter filter = new ETagFilter(properties);
+
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        assertEquals("held back", write(filter, "held back", headers));
+        assertTrue(headers.containsKey(HttpHeaders.ETAG));
+
+        // outgrows the limit in the middle
+        String large = new String(new char[10]).replace("\0", "pass-through");
+        headers = new MultivaluedHashMap<>();
+        assertEquals(large, write(filter, large, headers));
+        assertFalse(headers.containsKey(HttpHeaders.ETAG));
+    }
+
+    /**
+     * Runs the filter through a GET request, with the entity written one byte at a time
+     */
+    private static String write(ETagFilter filter, String entity, MultivaluedMap<String, Object> headers) throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+
+        ContainerRequestContext requestContext = Mockito.mock(ContainerRequestContext.class);
+        Mockito.when(requestContext.getMethod()).thenReturn(HttpMethod.GET);
+        Mockito.doAnswer(i -> properties.put(i.getArgument(0), i.getArgument(1))).when(requestContext).setProperty(Mockito.anyString(), Mockito.any());
+        ContainerResponseContext responseContext = Mockito.mock(ContainerResponseContext.class);
+        Mockito.when(responseContext.getStatus()).thenReturn(200);
+        Mockito.when(responseContext.hasEntity()).thenReturn(true);
+        Mockito.when(responseContext.getEntity()).thenReturn(entity);
+        filter.filter(requestContext, responseContext);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStream[] stream = {out};
+        WriterInterceptorContext context = Mockito.mock(WriterInterceptorContext.class);
+        Mockito.when(context.getProperty(Mockito.anyString())).thenAnswer(i -> properties.get(i.<String>getArgument(0)));
+        Mockito.when(context.getHeaders()).thenReturn(headers);
+        Mockito.when(context.getOutputStream()).then(invocation -> stream[0]);
+        Mockito.doAnswer(invocation -> stream[0] = invocation.getArgument(0)).when(context).setOutputStream(Mockito.any());
+        Mockito.doAnswer(invocation -> {
+            for (byte b : entity.getBytes(StandardCharsets.UTF_8)) {
+                stream[0].write(b);
+            }
+            return null;
+        }).when(context).proceed();
+        filter.aroundWriteTo(context);
+
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Path("etag")
+    @Produces(MediaType.APPLICATION_JSON)
+    public static class ETagEndpoint {
+        @GET
+        @Path("entity")
+        public Response entity() {
+            return Response.ok(new ErrorMessage("entity")).build();
+        }
+
+        @GET
+        @Path("versioned")
+        public Response versioned() {
+            return Response.ok(new ErrorMessage("versioned")).tag("v1").build();
+        }
+    }
+}
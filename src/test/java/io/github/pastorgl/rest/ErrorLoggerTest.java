@@ -0,0 +1,121 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.filters.ErrorLogger;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Property;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ErrorLoggerTest {
+    private Logger logger;
+    private CapturingAppender appender;
+
+    @BeforeAll
+    public void beforeAll() {
+        appender = new CapturingAppender();
+        appender.start();
+        logger = (Logger) LogManager.getLogger(ErrorLoggerTest.class);
+        logger.addAppender(appender);
+    }
+
+    @AfterAll
+    public void afterAll() {
+        logger.removeAppender(appender);
+        appender.stop();
+    }
+
+    @Test
+    public void oncePerWindow() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_ERROR_LOG_WINDOW, "1");
+        ErrorLogger errorLogger = new ErrorLogger(ErrorLoggerTest.class, properties);
+
+        for (int i = 0; i < 5; i++) {
+            errorLogger.error("repeated", failure());
+        }
+
+        List<String> reports = await(() -> messages("repeated 4 more times"), 1);
+        assertEquals(1, reports.size());
+        assertTrue(reports.get(0).startsWith(IllegalStateException.class.getName() + " at "), reports.get(0));
+
+        List<LogEvent> logged = appender.events.stream()
+                .filter(e -> "repeated".equals(e.getMessage().getFormattedMessage()))
+                .collect(Collectors.toList());
+        assertEquals(1, logged.size());
+        assertNotNull(logged.get(0).getThrown());
+    }
+
+    @Test
+    public void distinctSites() throws Exception {
+        ErrorLogger errorLogger = new ErrorLogger(ErrorLoggerTest.class, new Properties());
+
+        errorLogger.error("distinct", new IllegalStateException("first"));
+        errorLogger.error("distinct", new IllegalStateException("second"));
+        errorLogger.error("distinct", new IllegalArgumentException("third"));
+
+        List<String> logged = await(() -> messages("distinct"), 3);
+        assertEquals(3, logged.size());
+    }
+
+    @Test
+    public void invalidWindow() {
+        for (String window : new String[]{"0", "-1"}) {
+            Properties properties = new Properties();
+            properties.setProperty(GlobalConfig.PROPERTY_ERROR_LOG_WINDOW, window);
+
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new ErrorLogger(ErrorLoggerTest.class, properties));
+            assertTrue(e.getMessage().contains(GlobalConfig.PROPERTY_ERROR_LOG_WINDOW), e.getMessage());
+        }
+    }
+
+    private static IllegalStateException failure() {
+        return new IllegalStateException("failure");
+    }
+
+    private List<String> messages(String suffix) {
+        return appender.events.stream()
+                .map(e -> e.getMessage().getFormattedMessage())
+                .filter(m -> m.endsWith(suffix))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> await(Supplier<List<String>> messages, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        List<String> result = messages.get();
+        while ((result.size() < count) && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(50L);
+            result = messages.get();
+        }
+        // let anything logged past the expected count arrive too
+        Thread.sleep(200L);
+        return messages.get();
+    }
+
+    private static class CapturingAppender extends AbstractAppender {
+        private final List<LogEvent> events = new CopyOnWriteArrayList<>();
+
+        private CapturingAppender() {
+            super("capturing", null, null, true, Property.EMPTY_ARRAY);
+        }
+
+        @Override
+        public void append(LogEvent event) {
+            events.add(event.toImmutable());
+        }
+    }
+}
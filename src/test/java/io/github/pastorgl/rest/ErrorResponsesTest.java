@@ -0,0 +1,52 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.filters.ErrorResponses;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ErrorResponsesTest {
+    @Test
+    void defaultMessageTest() {
+        Response response = ErrorResponses.of(404, null);
+
+        assertEquals(404, response.getStatus());
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, response.getMediaType());
+        assertEquals("HTTP 404 Not Found", ((ErrorMessage) response.getEntity()).getError());
+
+        // shared entity, whether the default message is given or not
+        assertSame(response.getEntity(), ErrorResponses.of(404, null).getEntity());
+        assertSame(response.getEntity(), ErrorResponses.of(404, "HTTP 404 Not Found").getEntity());
+        assertNotSame(response, ErrorResponses.of(404, null));
+    }
+
+    @Test
+    void customMessageTest() {
+        Response response = ErrorResponses.of(404, "No such user");
+
+        assertEquals(404, response.getStatus());
+        assertEquals("No such user", ((ErrorMessage) response.getEntity()).getError());
+    }
+
+    @Test
+    void uncommonStatusTest() {
+        Response response = ErrorResponses.of(410, null);
+
+        assertEquals(410, response.getStatus());
+        assertEquals("HTTP 410 Gone", ((ErrorMessage) response.getEntity()).getError());
+        assertEquals("HTTP 410 Gone", ErrorResponses.defaultMessage(410));
+        assertEquals("Gone for good", ((ErrorMessage) ErrorResponses.of(410, "Gone for good").getEntity()).getError());
+    }
+
+    @Test
+    void internalErrorTest() {
+        Response response = ErrorResponses.internalError();
+
+        assertEquals(500, response.getStatus());
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, response.getMediaType());
+        assertEquals(ErrorResponses.INTERNAL_ERROR_MESSAGE, ((ErrorMessage) response.getEntity()).getError());
+    }
+}
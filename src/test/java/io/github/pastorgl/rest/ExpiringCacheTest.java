@@ -0,0 +1,89 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.cache.ExpiringCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCacheTest {
+    @Test
+    void expiryTest() throws Exception {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+
+        cache.put("a", "a", System.currentTimeMillis() + 100L);
+        cache.put("b", "b", System.currentTimeMillis() - 1L);
+
+        assertEquals("a", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.size());
+
+        Thread.sleep(150L);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(0L, cache.weight());
+    }
+
+    @Test
+    void lruEvictionTest() {
+        // two segments of weight 2, and small Integer keys go to segment (key & 1)
+        ExpiringCache<Integer, String> cache = new ExpiringCache<>(3);
+        long expiresAt = System.currentTimeMillis() + 60_000L;
+
+        cache.put(0, "0", expiresAt);
+        cache.put(2, "2", expiresAt);
+        cache.get(0);
+        cache.put(4, "4", expiresAt);
+
+        assertEquals("0", cache.get(0));
+        assertNull(cache.get(2));
+        assertEquals("4", cache.get(4));
+        assertEquals(1L, cache.evictionCount());
+
+        // other segment is unaffected
+        cache.put(1, "1", expiresAt);
+        assertEquals("1", cache.get(1));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void weigherTest() {
+        // sixteen segments of weight 10, for two values each
+        ExpiringCache<String, String> cache = new ExpiringCache<>(160, String::length);
+        long expiresAt = System.currentTimeMillis() + 60_000L;
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, "value", expiresAt);
+        }
+        assertTrue(cache.weight() <= 160L, String.valueOf(cache.weight()));
+        assertTrue(cache.evictionCount() > 0L);
+
+        // an entry heavier than its segment replaces nothing and isn't stored
+        cache.put("key99", "value", expiresAt);
+        cache.put("key99", new String(new char[11]), expiresAt);
+        assertNull(cache.get("key99"));
+    }
+
+    @Test
+    void countersTest() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+        cache.put("a", "a", System.currentTimeMillis() + 60_000L);
+
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+
+        assertEquals(2L, cache.hitCount());
+        assertEquals(1L, cache.missCount());
+        assertEquals(0L, cache.evictionCount());
+
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+        assertEquals(2L, cache.missCount());
+    }
+
+    @Test
+    void capacityTest() {
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringCache<>(0));
+    }
+}
@@ -0,0 +1,81 @@
+package io.github.pastorgl.rest;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import io.github.pastorgl.rest.entity.AuthorizedUser;
+import io.github.pastorgl.rest.entity.Role;
+import io.github.pastorgl.rest.filters.JwksKeySet;
+import io.github.pastorgl.rest.filters.JwtVerifier;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwksKeySetTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void fileJwksTest() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+
+        Path jwks = tempDir.resolve("jwks.json");
+        Files.write(jwks, ("{\"keys\":[{\"kty\":\"RSA\",\"use\":\"sig\",\"kid\":\"key-1\","
+                + "\"n\":\"" + base64Url(publicKey.getModulus()) + "\","
+                + "\"e\":\"" + base64Url(publicKey.getPublicExponent()) + "\"}]}").getBytes(StandardCharsets.UTF_8));
+
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_JWT_ALGORITHM, "RS256");
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_JWT_JWKS_URL, jwks.toUri().toString());
+
+        try (JwksKeySet keySet = new JwksKeySet(properties)) {
+            assertEquals(publicKey, keySet.getKey("key-1"));
+            assertNull(keySet.getKey("key-2"));
+        }
+
+        try (JwtVerifier verifier = new JwtVerifier(properties)) {
+            Algorithm algorithm = Algorithm.RSA256(publicKey, (RSAPrivateKey) keyPair.getPrivate());
+
+            AuthorizedUser user = verifier.verify(JWT.create()
+                    .withKeyId("key-1")
+                    .withSubject("test-uuid")
+                    .withClaim("role", "user")
+                    .sign(algorithm));
+
+            assertNotNull(user);
+            assertEquals(Role.USER, user.getRole());
+
+            assertNull(verifier.verify(JWT.create()
+                    .withKeyId("unknown")
+                    .withSubject("test-uuid")
+                    .withClaim("role", "user")
+                    .sign(algorithm)));
+        }
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.pastorgl.rest;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import io.github.pastorgl.rest.entity.AuthorizedUser;
+import io.github.pastorgl.rest.entity.Role;
+import io.github.pastorgl.rest.filters.JwtVerifier;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtVerifierTest {
+
+    @Test
+    void hmacTokenTest() {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_JWT_SECRET, "secret");
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_JWT_ISSUER, "test-issuer");
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_JWT_AUDIENCE, "test-audience");
+
+        JwtVerifier verifier = new JwtVerifier(properties);
+
+        String token = JWT.create()
+                .withIssuer("test-issuer")
+                .withAudience("test-audience")
+                .withSubject("test-uuid")
+                .withClaim("email", "test@email.com")
+                .withClaim("role", "admin")
+                .withClaim("name", "name")
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60000L))
+                .sign(Algorithm.HMAC256("secret"));
+
+        AuthorizedUser user = verifier.verify(token);
+
+        assertNotNull(user);
+        assertEquals("test-uuid", user.getId());
+        assertEquals("test@email.com", user.getEmail());
+        assertEquals(Role.ADMIN, user.getRole());
+        assertEquals("name", user.getName());
+
+        assertNull(verifier.verify(JWT.create()
+                .withIssuer("another-issuer")
+                .withAudience("test-audience")
+                .withSubject("test-uuid")
+                .withClaim("role", "user")
+                .sign(Algorithm.HMAC256("secret"))));
+        assertNull(verifier.verify(JWT.create()
+                .withIssuer("test-issuer")
+                .withAudience("test-audience")
+                .withSubject("test-uuid")
+                .withClaim("role", "user")
+                .withExpiresAt(new Date(System.currentTimeMillis() - 60000L))
+                .sign(Algorithm.HMAC256("secret"))));
+        assertNull(verifier.verify(JWT.create()
+                .withIssuer("test-issuer")
+                .withAudience("test-audience")
+                .withSubject("test-uuid")
+                .withClaim("role", "user")
+                .sign(Algorithm.HMAC256("wrong"))));
+        assertNull(verifier.verify("not a token"));
+    }
+
+    @Test
+    void rsaTokenTest() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_JWT_ALGORITHM, "RS256");
+        properties.setProperty(GlobalConfig.PROPERTY_AUTH_JWT_PUBLIC_KEY, "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----\n");
+
+        JwtVerifier verifier = new JwtVerifier(properties);
+
+        String token = JWT.create()
+                .withSubject("test-uuid")
+                .withClaim("role", "USER")
+                .sign(Algorithm.RSA256((RSAPublicKey) keyPair.getPublic(), (RSAPrivateKey) keyPair.getPrivate()));
+
+        AuthorizedUser user = verifier.verify(token);
+
+        assertNotNull(user);
+        assertEquals(Role.USER, user.getRole());
+    }
+}
@@ -0,0 +1,141 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.entity.AuthorizedUser;
+import io.github.pastorgl.rest.entity.Role;
+import io.github.pastorgl.rest.filters.RateLimitFilter;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RateLimitFilterTest {
+    @Test
+    void userLimitTest() {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_RATE_LIMIT + ".user", "0.5");
+        properties.setProperty(GlobalConfig.PROPERTY_RATE_LIMIT + ".admin", "1000");
+        RateLimitFilter filter = new RateLimitFilter(properties);
+
+        ContainerRequestContext first = request(new AuthorizedUser("user-1", null, Role.USER, null), null);
+        filter.filter(first);
+        Mockito.verify(first, Mockito.never()).abortWith(Mockito.any());
+
+        ContainerRequestContext second = request(new AuthorizedUser("user-1", null, Role.USER, null), null);
+        filter.filter(second);
+        ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+        Mockito.verify(second).abortWith(response.capture());
+        assertEquals(429, response.getValue().getStatus());
+        assertEquals("2", response.getValue().getHeaderString(HttpHeaders.RETRY_AFTER));
+
+        ContainerRequestContext otherUser = request(new AuthorizedUser("user-2", null, Role.USER, null), null);
+        filter.filter(otherUser);
+        Mockito.verify(otherUser, Mockito.never()).abortWith(Mockito.any());
+
+        for (int i = 0; i < 100; i++) {
+            ContainerRequestContext admin = request(new AuthorizedUser("admin-1", null, Role.ADMIN, null), null);
+            filter.filter(admin);
+            Mockito.verify(admin, Mockito.never()).abortWith(Mockito.any());
+        }
+    }
+
+    @Test
+    void anonymousLimitTest() {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_RATE_LIMIT + ".anonymous", "1");
+        properties.setProperty(GlobalConfig.PROPERTY_RATE_LIMIT_BURST, "3");
+        properties.setProperty(GlobalConfig.PROPERTY_RATE_LIMIT_TRUSTED_PROXIES, "127.0.0.1, 192.168.0.1");
+        HttpServletRequest servletRequest = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(servletRequest.getRemoteAddr()).thenReturn("127.0.0.1");
+        RateLimitFilter filter = new RateLimitFilter(properties, servletRequest);
+
+        for (int i = 0; i < 3; i++) {
+            ContainerRequestContext request = request(null, "10.0.0.1, 192.168.0.1");
+            filter.filter(request);
+            Mockito.verify(request, Mockito.never()).abortWith(Mockito.any());
+        }
+
+        ContainerRequestContext limited = request(null, "10.0.0.1");
+        filter.filter(limited);
+        Mockito.verify(limited).abortWith(Mockito.any());
+
+        // only the address appended by a trusted proxy counts, whatever the client sent before it
+        ContainerRequestContext spoofed = request(null, "10.0.0.3, 10.0.0.1, 192.168.0.1");
+        filter.filter(spoofed);
+        Mockito.verify(spoofed).abortWith(Mockito.any());
+
+        ContainerRequestContext otherAddress = request(null, "10.0.0.2");
+        filter.filter(otherAddress);
+        Mockito.verify(otherAddress, Mockito.never()).abortWith(Mockito.any());
+
+        // users are not limited at all
+        ContainerRequestContext user = request(new AuthorizedUser("user-1", null, Role.USER, null), "10.0.0.1");
+        filter.filter(user);
+        Mockito.verify(user, Mockito.never()).abortWith(Mockito.any());
+        assertEquals(2, filter.getBucketCount());
+    }
+
+    @Test
+    void userWithoutIdTest() {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_RATE_LIMIT + ".user", "1000");
+        properties.setProperty(GlobalConfig.PROPERTY_RATE_LIMIT + ".anonymous", "1");
+        HttpServletRequest servletRequest = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(servletRequest.getRemoteAddr()).thenReturn("10.0.0.1");
+        RateLimitFilter filter = new RateLimitFilter(properties, servletRequest);
+
+        ContainerRequestContext first = request(new AuthorizedUser(null, null, Role.USER, null), null);
+        filter.filter(first);
+        Mockito.verify(first, Mockito.never()).abortWith(Mockito.any());
+
+        // limited by address, as anonymous
+        ContainerRequestContext second = request(new AuthorizedUser(null, null, Role.USER, null), null);
+        filter.filter(second);
+        Mockito.verify(second).abortWith(Mockito.any());
+        assertEquals(1, filter.getBucketCount());
+    }
+
+    @Test
+    void untrustedProxyTest() {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_RATE_LIMIT + ".anonymous", "1");
+        HttpServletRequest servletRequest = Mockito.mock(HttpServletRequest.class);
+        RateLimitFilter filter = new RateLimitFilter(properties, servletRequest);
+
+        Mockito.when(servletRequest.getRemoteAddr()).thenReturn("10.0.0.1");
+        ContainerRequestContext first = request(null, "10.0.0.2");
+        filter.filter(first);
+        Mockito.verify(first, Mockito.never()).abortWith(Mockito.any());
+
+        // forwarding headers from untrusted clients are ignored
+        ContainerRequestContext spoofed = request(null, "10.0.0.3");
+        Mockito.when(spoofed.getHeaderString(RateLimitFilter.HEADER_X_REAL_IP)).thenReturn("10.0.0.4");
+        filter.filter(spoofed);
+        Mockito.verify(spoofed).abortWith(Mockito.any());
+
+        // clients without forwarding headers are told apart by remote address
+        Mockito.when(servletRequest.getRemoteAddr()).thenReturn("10.0.0.5");
+        ContainerRequestContext otherAddress = request(null, null);
+        filter.filter(otherAddress);
+        Mockito.verify(otherAddress, Mockito.never()).abortWith(Mockito.any());
+        assertEquals(2, filter.getBucketCount());
+    }
+
+    private static ContainerRequestContext request(AuthorizedUser user, String forwardedFor) {
+        ContainerRequestContext requestContext = Mockito.mock(ContainerRequestContext.class);
+        SecurityContext securityContext = Mockito.mock(SecurityContext.class);
+        Mockito.when(securityContext.getUserPrincipal()).thenReturn(user);
+        Mockito.when(requestContext.getSecurityContext()).thenReturn(securityContext);
+        Mockito.when(requestContext.getHeaderString(RateLimitFilter.HEADER_X_FORWARDED_FOR)).thenReturn(forwardedFor);
+
+        return requestContext;
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.filters.MetricsFilter;
+import io.github.pastorgl.rest.metrics.LatencyHistogram;
+import io.github.pastorgl.rest.metrics.RequestMetrics;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestMetricsTest {
+    @Test
+    void histogramTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1L; micros <= 1000L; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+        histogram.record(TimeUnit.HOURS.toNanos(1L));
+
+        assertEquals(1001L, histogram.getCount());
+        assertEquals(1L, histogram.getBucket(LatencyHistogram.OVERFLOW));
+
+        long median = histogram.getPercentile(50.D);
+        assertTrue((median >= 500L) && (median <= 500L * 5 / 4 + 1), "median " + median);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(100.D));
+
+        long previous = 0L;
+        for (int bucket = 0; bucket < LatencyHistogram.OVERFLOW; bucket++) {
+            assertTrue(LatencyHistogram.upperBound(bucket) > previous);
+            previous = LatencyHistogram.upperBound(bucket);
+        }
+    }
+
+    @Test
+    void filterTest() throws Exception {
+        RequestMetrics metrics = new RequestMetrics();
+        ResourceInfo resourceInfo = Mockito.mock(ResourceInfo.class);
+        Mockito.when(resourceInfo.getResourceMethod()).thenReturn(RequestMetricsTest.class.getDeclaredMethod("filterTest"));
+        MetricsFilter filter = new MetricsFilter(resourceInfo, metrics);
+
+        Map<String, Object> properties = new HashMap<>();
+        ContainerRequestContext requestContext = Mockito.mock(ContainerRequestContext.class);
+        Mockito.doAnswer(invocation -> properties.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(requestContext).setProperty(Mockito.anyString(), Mockito.any());
+        Mockito.when(requestContext.getProperty(Mockito.anyString())).then(invocation -> properties.get(invocation.<String>getArgument(0)));
+        Mockito.doAnswer(invocation -> properties.remove(invocation.<String>getArgument(0)))
+                .when(requestContext).removeProperty(Mockito.anyString());
+
+        ContainerResponseContext noContent = Mockito.mock(ContainerResponseContext.class);
+        Mockito.when(noContent.getStatus()).thenReturn(404);
+        filter.filter(requestContext);
+        filter.filter(requestContext, noContent);
+
+        ContainerResponseContext withEntity = Mockito.mock(ContainerResponseContext.class);
+        Mockito.when(withEntity.hasEntity()).thenReturn(true);
+        Mockito.when(withEntity.getStatus()).thenReturn(200);
+        WriterInterceptorContext writerContext = Mockito.mock(WriterInterceptorContext.class);
+        Mockito.when(writerContext.getProperty(Mockito.anyString())).then(invocation -> properties.get(invocation.<String>getArgument(0)));
+        Mockito.doAnswer(invocation -> properties.remove(invocation.<String>getArgument(0)))
+                .when(writerContext).removeProperty(Mockito.anyString());
+        filter.filter(requestContext);
+        filter.filter(requestContext, withEntity);
+        filter.aroundWriteTo(writerContext);
+
+        RequestMetrics.EndpointMetrics endpoint = metrics.getEndpoints().get("io.github.pastorgl.rest.RequestMetricsTest.filterTest");
+        assertEquals(2L, endpoint.getRequests());
+        assertEquals(1L, endpoint.getStatusCount(2));
+        assertEquals(1L, endpoint.getStatusCount(4));
+        assertNotSame(metrics.endpoint(java.util.Date.class.getMethod("toInstant")),
+                metrics.endpoint(java.sql.Date.class.getMethod("toInstant")));
+
+        metrics.recordAuthCheck(TimeUnit.MILLISECONDS.toNanos(3L), true);
+
+        StringWriter prometheus = new StringWriter();
+        metrics.writePrometheus(prometheus);
+        String text = prometheus.toString();
+        assertTrue(text.contains("rest_requests_total{resource=\"io.github.pastorgl.rest.RequestMetricsTest.filterTest\",status=\"2xx\"} 1\n"));
+        assertTrue(text.contains("rest_request_duration_seconds_count{resource=\"io.github.pastorgl.rest.RequestMetricsTest.filterTest\"} 2\n"));
+        assertTrue(text.contains("rest_request_duration_seconds_bucket{resource=\"io.github.pastorgl.rest.RequestMetricsTest.filterTest\",le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("rest_auth_check_duration_seconds_bucket{le=\"0.004096\"} 1\n"));
+        assertTrue(text.contains("rest_auth_check_failures_total 1\n"));
+    }
+}
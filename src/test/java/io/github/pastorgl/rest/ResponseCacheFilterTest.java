@@ -0,0 +1,311 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.entity.AuthorizedUser;
+import io.github.pastorgl.rest.entity.Role;
+import io.github.pastorgl.rest.filters.ResponseCacheFilter;
+import io.github.pastorgl.rest.filters.UserSecurityContext;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.glassfish.jersey.client.JerseyClient;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mockito;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.*;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ResponseCacheFilterTest {
+    private TestServer server;
+    private JerseyClient client;
+    private UriInfo uriInfo;
+
+    @BeforeAll
+    public void beforeAll() throws Exception {
+        server = new TestServer(new Properties());
+        client = new JerseyClientBuilder().build();
+    }
+
+    @AfterAll
+    public void afterAll() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void cachedResponse() {
+        String first = client.target(TestServer.BASE_URI + "cache/entity").queryParam("q", "a").request().get(String.class);
+        String second = client.target(TestServer.BASE_URI + "cache/entity").queryParam("q", "a").request().get(String.class);
+        String other = client.target(TestServer.BASE_URI + "cache/entity").queryParam("q", "b").request().get(String.class);
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    public void replayedHeaders() {
+        Response first = client.target(TestServer.BASE_URI + "cache/headers").request().get();
+        Response second = client.target(TestServer.BASE_URI + "cache/headers").request().get();
+
+        assertEquals(203, first.getStatus());
+        assertEquals(203, second.getStatus());
+        assertEquals("max-age=60", second.getHeaderString(HttpHeaders.CACHE_CONTROL));
+        assertEquals(HttpHeaders.ACCEPT_LANGUAGE, second.getHeaderString(HttpHeaders.VARY));
+        assertEquals(first.getHeaderString("X-Call"), second.getHeaderString("X-Call"));
+        assertEquals(first.getMediaType(), second.getMediaType());
+        assertEquals(first.readEntity(String.class), second.readEntity(String.class));
+    }
+
+    @Test
+    public void keyedOnAccept() {
+        String json = client.target(TestServer.BASE_URI + "cache/negotiated").request(MediaType.APPLICATION_JSON).get(String.class);
+        String text = client.target(TestServer.BASE_URI + "cache/negotiated").request(MediaType.TEXT_PLAIN).get(String.class);
+        String cached = client.target(TestServer.BASE_URI + "cache/negotiated").request(MediaType.APPLICATION_JSON).get(String.class);
+
+        assertTrue(json.startsWith("{"), json);
+        assertEquals("text", text);
+        assertEquals(json, cached);
+
+        // stored before compression, so shared by all encodings
+        String first = client.target(TestServer.BASE_URI + "cache/entity").queryParam("q", "c").request()
+                .header(HttpHeaders.ACCEPT_ENCODING, "identity").get(String.class);
+        String other = client.target(TestServer.BASE_URI + "cache/entity").queryParam("q", "c").request()
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip").get(String.class);
+
+        assertEquals(first, other);
+    }
+
+    @Test
+    public void expiredEntry() throws Exception {
+        String first = client.target(TestServer.BASE_URI + "cache/expiring").request().get(String.class);
+        String second = client.target(TestServer.BASE_URI + "cache/expiring").request().get(String.class);
+
+        Thread.sleep(1100L);
+
+        String expired = client.target(TestServer.BASE_URI + "cache/expiring").request().get(String.class);
+
+        assertEquals(first, second);
+        assertNotEquals(first, expired);
+    }
+
+    @Test
+    public void sharedByRole() throws Exception {
+        ResponseCacheFilter filter = filter("shared", new Properties());
+
+        AuthorizedUser user = new AuthorizedUser("1", null, Role.USER, null);
+        AuthorizedUser sameRoles = new AuthorizedUser("2", null, Role.USER, null);
+        AuthorizedUser otherRoles = new AuthorizedUser("3", null, Role.ADMIN, null);
+
+        assertNull(exchange(filter, user, new MultivaluedHashMap<>(), new byte[10]));
+        assertNotNull(exchange(filter, sameRoles, new MultivaluedHashMap<>(), new byte[10]));
+        assertNull(exchange(filter, otherRoles, new MultivaluedHashMap<>(), new byte[10]));
+        assertEquals(2, filter.getCache().size());
+    }
+
+    @Test
+    public void privateResponses() throws Exception {
+        ResponseCacheFilter filter = filter("entity", new Properties());
+        AuthorizedUser user = new AuthorizedUser("1", null, Role.USER, null);
+
+        MultivaluedMap<String, Object> cookie = new MultivaluedHashMap<>();
+        cookie.add(HttpHeaders.SET_COOKIE, "session=1");
+        assertNull(exchange(filter, user, cookie, new byte[10]));
+        assertNull(exchange(filter, user, cookie, new byte[10]));
+
+        MultivaluedMap<String, Object> cacheControl = new MultivaluedHashMap<>();
+        cacheControl.add(HttpHeaders.CACHE_CONTROL, "max-age=60, Private");
+        assertNull(exchange(filter, user, cacheControl, new byte[10]));
+
+        cacheControl.putSingle(HttpHeaders.CACHE_CONTROL, CacheControl.valueOf("no-store"));
+        assertNull(exchange(filter, user, cacheControl, new byte[10]));
+
+        assertEquals(0, filter.getCache().size());
+    }
+
+    @Test
+    public void maxEntrySize() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_RESPONSE_CACHE_MAX_ENTRY_SIZE, "100");
+        ResponseCacheFilter filter = filter("entity", properties);
+        AuthorizedUser user = new AuthorizedUser("1", null, Role.USER, null);
+
+        assertNull(exchange(filter, user, new MultivaluedHashMap<>(), new byte[101]));
+        assertNull(exchange(filter, user, new MultivaluedHashMap<>(), new byte[101]));
+        assertEquals(0, filter.getCache().size());
+
+        assertNull(exchange(filter, user, new MultivaluedHashMap<>(), new byte[100]));
+        Response cached = exchange(filter, user, new MultivaluedHashMap<>(), new byte[100]);
+        assertNotNull(cached);
+        assertEquals(100, ((byte[]) cached.getEntity()).length);
+    }
+
+    @Test
+    public void evictedOverSize() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_RESPONSE_CACHE_SIZE, "4096");
+        ResponseCacheFilter filter = filter("entity", properties);
+        AuthorizedUser user = new AuthorizedUser("1", null, Role.USER, null);
+
+        for (int i = 0; i < 100; i++) {
+            Mockito.when(uriInfo.getRequestUri()).thenReturn(URI.create(TestServer.BASE_URI + "cache/entity?q=" + i));
+            exchange(filter, user, new MultivaluedHashMap<>(), new byte[100]);
+        }
+
+        assertTrue(filter.getCache().weight() <= 4096L, String.valueOf(filter.getCache().weight()));
+        assertTrue(filter.getCache().evictionCount() > 0L);
+        assertTrue(filter.getCache().size() < 100);
+    }
+
+    @Test
+    public void userWithoutId() throws Exception {
+        ResponseCacheFilter filter = filter("entity", new Properties());
+
+        ContainerRequestContext requestContext = Mockito.mock(ContainerRequestContext.class);
+        Mockito.when(requestContext.getMethod()).thenReturn(HttpMethod.GET);
+        Mockito.when(requestContext.getSecurityContext()).thenReturn(new UserSecurityContext(
+                new AuthorizedUser(null, null, Role.USER, null), false, "Bearer"));
+
+        filter.filter(requestContext);
+
+        // not shared among users without ID
+        Mockito.verify(requestContext, Mockito.never()).setProperty(Mockito.anyString(), Mockito.any());
+        Mockito.verify(requestContext, Mockito.never()).abortWith(Mockito.any());
+    }
+
+    private ResponseCacheFilter filter(String method, Properties properties) throws Exception {
+        ResourceInfo resourceInfo = Mockito.mock(ResourceInfo.class);
+        Mockito.when(resourceInfo.getResourceMethod()).thenReturn((method.equals("entity"))
+                ? CacheEndpoint.class.getMethod(method, String.class) : CacheEndpoint.class.getMethod(method));
+        uriInfo = Mockito.mock(UriInfo.class);
+        Mockito.when(uriInfo.getRequestUri()).thenReturn(URI.create(TestServer.BASE_URI + "cache/" + method));
+
+        return new ResponseCacheFilter(properties, resourceInfo, uriInfo);
+    }
+
+    /**
+     * Runs the filter through a GET request
+     *
+     * @return response from cache, or null if the resource method was called
+     */
+    private static Response exchange(ResponseCacheFilter filter, AuthorizedUser user, MultivaluedMap<String, Object> headers, byte[] body) throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        AtomicReference<Response> cached = new AtomicReference<>();
+
+        ContainerRequestContext requestContext = Mockito.mock(ContainerRequestContext.class);
+        Mockito.when(requestContext.getMethod()).thenReturn(HttpMethod.GET);
+        Mockito.when(requestContext.getSecurityContext()).thenReturn(new UserSecurityContext(user, false, "Bearer"));
+        Mockito.doAnswer(i -> properties.put(i.getArgument(0), i.getArgument(1))).when(requestContext).setProperty(Mockito.anyString(), Mockito.any());
+        Mockito.when(requestContext.getProperty(Mockito.anyString())).thenAnswer(i -> properties.get(i.<String>getArgument(0)));
+        Mockito.doAnswer(i -> properties.remove(i.<String>getArgument(0))).when(requestContext).removeProperty(Mockito.anyString());
+        Mockito.doAnswer(i -> {
+            cached.set(i.getArgument(0));
+            return null;
+        }).when(requestContext).abortWith(Mockito.any());
+
+        filter.filter(requestContext);
+        if (cached.get() != null) {
+            return cached.get();
+        }
+
+        ContainerResponseContext responseContext = Mockito.mock(ContainerResponseContext.class);
+        Mockito.when(responseContext.getStatus()).thenReturn(200);
+        Mockito.when(responseContext.getStatusInfo()).thenReturn(Response.Status.OK);
+        Mockito.when(responseContext.getEntity()).thenReturn(body);
+        Mockito.when(responseContext.getHeaders()).thenReturn(headers);
+        filter.filter(requestContext, responseContext);
+
+        AtomicReference<OutputStream> entityStream = new AtomicReference<>(new ByteArrayOutputStream());
+        WriterInterceptorContext writerContext = Mockito.mock(WriterInterceptorContext.class);
+        Mockito.when(writerContext.getProperty(Mockito.anyString())).thenAnswer(i -> properties.get(i.<String>getArgument(0)));
+        Mockito.doAnswer(i -> properties.remove(i.<String>getArgument(0))).when(writerContext).removeProperty(Mockito.anyString());
+        Mockito.when(writerContext.getOutputStream()).thenAnswer(i -> entityStream.get());
+        Mockito.doAnswer(i -> {
+            entityStream.set(i.getArgument(0));
+            return null;
+        }).when(writerContext).setOutputStream(Mockito.any());
+        Mockito.when(writerContext.getMediaType()).thenReturn(MediaType.APPLICATION_OCTET_STREAM_TYPE);
+        Mockito.doAnswer(i -> {
+            // one byte at a time for the first, the rest at once
+            entityStream.get().write(body[0]);
+            entityStream.get().write(body, 1, body.length - 1);
+            return null;
+        }).when(writerContext).proceed();
+        filter.aroundWriteTo(writerContext);
+
+        return null;
+    }
+
+    @Path("cache")
+    @Produces(MediaType.APPLICATION_JSON)
+    public static class CacheEndpoint {
+        private static final AtomicInteger CALLS = new AtomicInteger();
+
+        @GET
+        @Path("entity")
+        @CachedResponse(ttl = 60L)
+        public Response entity(@QueryParam("q") String q) {
+            return Response.ok(new ErrorMessage(q + CALLS.incrementAndGet())).build();
+        }
+
+        @GET
+        @Path("expiring")
+        @CachedResponse(ttl = 1L)
+        public Response expiring() {
+            return Response.ok(new ErrorMessage("expiring" + CALLS.incrementAndGet())).build();
+        }
+
+        @GET
+        @Path("shared")
+        @CachedResponse(ttl = 60L, scope = CachedResponse.Scope.ROLE)
+        public Response shared() {
+            return Response.ok(new ErrorMessage("shared" + CALLS.incrementAndGet())).build();
+        }
+
+        @GET
+        @Path("headers")
+        @CachedResponse(ttl = 60L)
+        public Response headers() {
+            return Response.status(203)
+                    .entity(new ErrorMessage("headers"))
+                    .header(HttpHeaders.CACHE_CONTROL, "max-age=60")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE)
+                    .header("X-Call", CALLS.incrementAndGet())
+                    .build();
+        }
+
+        @GET
+        @Path("negotiated")
+        @CachedResponse(ttl = 60L)
+        public Response negotiatedJson() {
+            return Response.ok(new ErrorMessage("json" + CALLS.incrementAndGet())).build();
+        }
+
+        @GET
+        @Path("negotiated")
+        @Produces(MediaType.TEXT_PLAIN)
+        @CachedResponse(ttl = 60L)
+        public Response negotiatedText() {
+            return Response.ok("text").build();
+        }
+    }
+}
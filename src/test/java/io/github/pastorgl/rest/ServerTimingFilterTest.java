@@ -0,0 +1,66 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.filters.ServerTiming;
+import io.github.pastorgl.rest.filters.ServerTimingFilter;
+import io.github.pastorgl.rest.init.GlobalConfig;
+import org.glassfish.jersey.client.JerseyClient;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ServerTimingFilterTest {
+    private TestServer server;
+    private JerseyClient client;
+
+    @BeforeAll
+    public void beforeAll() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_SERVER_TIMING_HEADER, "true");
+        server = new TestServer(properties);
+        client = new JerseyClientBuilder().build();
+    }
+
+    @AfterAll
+    public void afterAll() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void serverTiming() {
+        Response response = client.target(TestServer.BASE_URI + "timing/entity").request()
+                .header(ServerTimingFilter.HEADER_REQUEST_TIMING, "1")
+                .get();
+
+        assertEquals(200, response.getStatus());
+        String serverTiming = response.getHeaderString(ServerTiming.HEADER_SERVER_TIMING);
+        assertNotNull(serverTiming);
+        assertTrue(serverTiming.matches("prematch;dur=\\d+\\.\\d{3}, resource;dur=\\d+\\.\\d{3}, serialization;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}"), serverTiming);
+
+        Response untimed = client.target(TestServer.BASE_URI + "timing/entity").request().get();
+
+        assertNull(untimed.getHeaderString(ServerTiming.HEADER_SERVER_TIMING));
+    }
+
+    @Path("timing")
+    @Produces(MediaType.APPLICATION_JSON)
+    public static class TimingEndpoint {
+        @GET
+        @Path("entity")
+        public Response entity() {
+            return Response.ok(new ErrorMessage("entity")).build();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.pastorgl.rest;
+
+import io.github.pastorgl.rest.filters.StatusException;
+import org.glassfish.jersey.client.JerseyClient;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class StatusExceptionTest {
+    private TestServer server;
+    private JerseyClient client;
+
+    @BeforeAll
+    public void beforeAll() throws Exception {
+        server = new TestServer(new Properties());
+        client = new JerseyClientBuilder().build();
+    }
+
+    @AfterAll
+    public void afterAll() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void preallocated() {
+        StatusException conflict = StatusException.of(Response.Status.CONFLICT);
+
+        assertSame(conflict, StatusException.of(Response.Status.CONFLICT));
+        assertEquals(0, conflict.getStackTrace().length);
+
+        conflict.setStackTrace(new Throwable().getStackTrace());
+        assertEquals(0, conflict.getStackTrace().length);
+
+        assertThrows(IllegalStateException.class, () -> conflict.initCause(new RuntimeException()));
+        assertNull(conflict.getCause());
+
+        assertEquals(409, conflict.getResponse().getStatus());
+        assertNotSame(conflict.getResponse(), conflict.getResponse());
+    }
+
+    @Test
+    public void errorResponse() {
+        Response response = client.target(TestServer.BASE_URI + "status/conflict").request().get();
+
+        assertEquals(409, response.getStatus());
+        assertEquals("HTTP 409 Conflict", response.readEntity(ErrorMessage.class).getError());
+    }
+
+    @Path("status")
+    @Produces(MediaType.APPLICATION_JSON)
+    public static class StatusEndpoint {
+        @GET
+        @Path("conflict")
+        public Response conflict() {
+            throw StatusException.of(Response.Status.CONFLICT);
+        }
+    }
+}
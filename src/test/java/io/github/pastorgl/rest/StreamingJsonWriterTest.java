@@ -0,0 +1,94 @@
+package io.github.pastorgl.rest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.pastorgl.rest.filters.StreamingJsonWriter;
+import org.glassfish.jersey.client.JerseyClient;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class StreamingJsonWriterTest {
+    private static final List<String> STRINGS = Arrays.asList("abc", "with \"quotes\"", "line\nbreak", "");
+
+    private TestServer server;
+    private JerseyClient client;
+
+    @BeforeAll
+    public void beforeAll() throws Exception {
+        server = new TestServer(new Properties());
+        client = new JerseyClientBuilder().build();
+    }
+
+    @AfterAll
+    public void afterAll() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void streamedArray() {
+        Response response = client.target(TestServer.BASE_URI + "streaming/array").request().get();
+
+        assertEquals(200, response.getStatus());
+        assertEquals("[{\"error\":\"first\"},null,{\"error\":\"second\"}]", response.readEntity(String.class));
+    }
+
+    @Test
+    public void streamedNdjson() {
+        Response response = client.target(TestServer.BASE_URI + "streaming/ndjson").request().get();
+
+        assertEquals(200, response.getStatus());
+        assertEquals(StreamingJsonWriter.APPLICATION_NDJSON_TYPE, response.getMediaType());
+        assertEquals("{\"error\":\"first\"}\n{\"error\":\"second\"}\n", response.readEntity(String.class));
+    }
+
+    @Test
+    public void streamedStrings() throws Exception {
+        Response response = client.target(TestServer.BASE_URI + "streaming/strings").request().get();
+
+        assertEquals(200, response.getStatus());
+        List<String> strings = new ObjectMapper().readValue(response.readEntity(String.class), new TypeReference<List<String>>() {
+        });
+        assertEquals(STRINGS, strings);
+    }
+
+    @Path("streaming")
+    @Produces(MediaType.APPLICATION_JSON)
+    public static class StreamingEndpoint {
+        @GET
+        @Path("array")
+        public Stream<ErrorMessage> array() {
+            return Stream.of(new ErrorMessage("first"), null, new ErrorMessage("second"));
+        }
+
+        @GET
+        @Path("ndjson")
+        @Produces(StreamingJsonWriter.APPLICATION_NDJSON)
+        public Iterator<ErrorMessage> ndjson() {
+            return Arrays.asList(new ErrorMessage("first"), new ErrorMessage("second")).iterator();
+        }
+
+        @GET
+        @Path("strings")
+        public Stream<String> strings() {
+            return STRINGS.stream();
+        }
+    }
+}
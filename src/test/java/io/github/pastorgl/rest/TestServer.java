@@ -0,0 +1,53 @@
+package io.github.pastorgl.rest;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Module;
+import io.logz.guice.jersey.JerseyModule;
+import io.logz.guice.jersey.JerseyServer;
+import io.logz.guice.jersey.configuration.JerseyConfiguration;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.ServerProperties;
+import org.glassfish.jersey.server.filter.RolesAllowedDynamicFeature;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Jersey server with all providers of this library and all test resources, configured with given properties
+ */
+class TestServer implements AutoCloseable {
+    static final String BASE_URI = "http://localhost:9999/";
+
+    private final JerseyServer server;
+
+    TestServer(Properties properties) throws Exception {
+        ResourceConfig resourceConfig = new ResourceConfig()
+                .property(ServerProperties.WADL_FEATURE_DISABLE, true)
+                .property(ServerProperties.PROVIDER_PACKAGES, new String[]{"io.github.pastorgl.rest"})
+                .property(ServerProperties.PROVIDER_CLASSNAMES, new String[]{RolesAllowedDynamicFeature.class.getCanonicalName()});
+
+        JerseyConfiguration configuration = JerseyConfiguration.builder()
+                .withResourceConfig(resourceConfig)
+                .addHost("localhost", 9999)
+                .build();
+
+        List<Module> modules = new ArrayList<>();
+        modules.add(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Properties.class).toInstance(properties);
+            }
+        });
+        modules.add(new JerseyModule(configuration));
+
+        server = Guice.createInjector(modules).getInstance(JerseyServer.class);
+        server.start();
+    }
+
+    @Override
+    public void close() throws Exception {
+        server.stop();
+    }
+}
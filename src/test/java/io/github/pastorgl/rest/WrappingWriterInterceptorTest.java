@@ -8,6 +8,7 @@ import io.github.pastorgl.rest.entity.AuthorizedUser;
 import io.github.pastorgl.rest.entity.Role;
 import io.github.pastorgl.rest.entity.Token;
 import io.github.pastorgl.rest.filters.AuthHeader;
+import io.github.pastorgl.rest.filters.WrappingWriterInterceptor;
 import io.github.pastorgl.rest.init.GlobalConfig;
 import io.logz.guice.jersey.JerseyModule;
 import io.logz.guice.jersey.JerseyServer;
@@ -21,6 +22,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mockito;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
@@ -30,8 +32,13 @@ import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 
@@ -163,6 +170,43 @@ public class WrappingWriterInterceptorTest {
         }
     }
 
+    @Test
+    public void notWrapped() throws Exception {
+        UriInfo uriInfo = Mockito.mock(UriInfo.class);
+        Mockito.when(uriInfo.getPath(false)).thenReturn("test/plain");
+        Properties properties = new Properties();
+        properties.setProperty(GlobalConfig.PROPERTY_WRAPPING_EXCLUDED_TYPES, TestToken.class.getName());
+        WrappingWriterInterceptor interceptor = new WrappingWriterInterceptor(uriInfo, properties);
+
+        WriterInterceptorContext tokenContext = writerContext(new TestToken(), new Annotation[0]);
+        interceptor.aroundWriteTo(tokenContext);
+        Mockito.verify(tokenContext, Mockito.never()).setMediaType(Mockito.any());
+        Mockito.verify(tokenContext).proceed();
+
+        // defaults stay excluded along with configured types
+        WriterInterceptorContext iteratorContext = writerContext(Collections.emptyIterator(), new Annotation[0]);
+        interceptor.aroundWriteTo(iteratorContext);
+        Mockito.verify(iteratorContext, Mockito.never()).setMediaType(Mockito.any());
+
+        WriterInterceptorContext plainContext = writerContext(new TestEntity(),
+                TestEndpoint.class.getMethod("plain").getAnnotations());
+        interceptor.aroundWriteTo(plainContext);
+        Mockito.verify(plainContext, Mockito.never()).setMediaType(Mockito.any());
+
+        WriterInterceptorContext entityContext = writerContext(new TestEntity(), new Annotation[0]);
+        interceptor.aroundWriteTo(entityContext);
+        Mockito.verify(entityContext).setMediaType(MediaType.APPLICATION_JSON_TYPE);
+    }
+
+    private static WriterInterceptorContext writerContext(Object entity, Annotation[] annotations) {
+        WriterInterceptorContext context = Mockito.mock(WriterInterceptorContext.class);
+        Mockito.when(context.getEntity()).thenReturn(entity);
+        Mockito.when(context.getAnnotations()).thenReturn(annotations);
+        Mockito.when(context.getHeaders()).thenReturn(new MultivaluedHashMap<>());
+        Mockito.when(context.getMediaType()).thenReturn(MediaType.WILDCARD_TYPE);
+        return context;
+    }
+
     @Path("test")
     @Produces(MediaType.APPLICATION_JSON)
     public static class TestEndpoint {
@@ -187,6 +231,14 @@ public class WrappingWriterInterceptorTest {
             return Response.ok(entity).build();
         }
 
+        @GET
+        @Path("plain")
+        @Produces(MediaType.TEXT_PLAIN)
+        @Wrapping(false)
+        public Response plain() {
+            return Response.ok("plain").build();
+        }
+
         @GET
         @Path("internal-error")
         public Response internalError() {